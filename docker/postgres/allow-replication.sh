@@ -0,0 +1,5 @@
+#!/bin/sh
+# Lets a streaming replica connect as the database owner (see fleet-db-replica in docker-compose.yml).
+# Runs on first initialization of the data directory only.
+set -e
+echo "host replication ${POSTGRES_USER} all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,245 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Open-loop telemetry load against a running fleet-service: {@code vehicles} vehicles each report once every
+ * {@code interval} seconds, sent as {@code POST /telemetry} batches of up to {@code batch} readings. Readings are
+ * offered at that rate whether or not the service keeps up; batches refused with 503 are counted, not retried.
+ * <p>
+ * Prints the offered, accepted and throttled reading rates of the measured phase, the rate the service wrote, and the
+ * pipeline and end-to-end lag percentiles from the service's {@code fleet_telemetry_lag_seconds} histogram.
+ * <p>
+ * Single-file program, needs nothing but a JDK 21:
+ * <pre>
+ * java fleet-benchmarks/load/TelemetryLoad.java --vehicles 20000 --interval 1 --batch 500 --duration 30
+ * </pre>
+ * Vehicles are taken from {@code GET /vehicles/export}; {@code --key vin} identifies them by VIN instead of id.
+ */
+public class TelemetryLoad {
+
+    private static final Pattern VEHICLE = Pattern.compile("\"id\":\"([0-9a-f-]{36})\".*?\"vin\":\"([^\"]+)\"");
+    private static final Pattern ACCEPTED = Pattern.compile("\"accepted\":(\\d+)");
+    private static final Pattern METRIC = Pattern.compile("^(fleet_telemetry_\\w+)(?:\\{(.*)})? (\\S+)$");
+    private static final Pattern LE = Pattern.compile("le=\"([^\"]+)\"");
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final int MAX_IN_FLIGHT = 256;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "url", "http://localhost:8081",
+                "user", "admin:admin",
+                "vehicles", "10000",
+                "interval", "1",
+                "batch", "500",
+                "key", "id",
+                "warmup", "10",
+                "duration", "30"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        String url = options.get("url");
+        String auth = "Basic " + Base64.getEncoder().encodeToString(options.get("user").getBytes(StandardCharsets.UTF_8));
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        boolean byVin = options.get("key").equals("vin");
+        List<String> keys = new ArrayList<>();
+        HttpResponse<Stream<String>> export = client.send(
+                HttpRequest.newBuilder(URI.create(url + "/vehicles/export?format=ndjson")).header("Authorization", auth).build(),
+                HttpResponse.BodyHandlers.ofLines());
+        int wanted = Integer.parseInt(options.get("vehicles"));
+        export.body().limit(wanted).forEach(line -> {
+            Matcher matcher = VEHICLE.matcher(line);
+            if (matcher.find()) {
+                keys.add(byVin ? "\"vin\":\"" + matcher.group(2) + "\"" : "\"vehicleId\":\"" + matcher.group(1) + "\"");
+            }
+        });
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No vehicles to report for, create some first");
+        }
+
+        Load load = new Load(client, url, auth, keys,
+                Duration.ofMillis((long) (Double.parseDouble(options.get("interval")) * 1000)),
+                Integer.parseInt(options.get("batch")));
+        System.out.printf("%d vehicles every %ss in batches of %s (%.0f readings/s offered) against %s%n",
+                keys.size(), options.get("interval"), options.get("batch"), load.rate(), url);
+
+        load.run(Duration.ofSeconds(Long.parseLong(options.get("warmup"))));
+        Map<String, Double> before = scrape(client, url);
+        Counts counts = load.run(Duration.ofSeconds(Long.parseLong(options.get("duration"))));
+        // let the writer catch up with what was accepted before comparing
+        Thread.sleep(2000);
+        Map<String, Double> after = scrape(client, url);
+
+        double seconds = Long.parseLong(options.get("duration"));
+        System.out.printf("readings/s: offered %.0f, accepted %.0f, throttled %.0f, written %.0f; failed batches %d, "
+                        + "skipped batches %d%n",
+                counts.offered / seconds, counts.accepted / seconds, counts.throttled / seconds,
+                delta(before, after, "fleet_telemetry_written_total") / seconds, counts.failed, counts.skipped);
+        for (String stage : List.of("pipeline", "end-to-end")) {
+            System.out.printf("%s lag ms: p50 <= %s, p99 <= %s%n", stage,
+                    lagPercentile(before, after, stage, 0.50), lagPercentile(before, after, stage, 0.99));
+        }
+    }
+
+    private record Counts(long offered, long accepted, long throttled, long failed, long skipped) {}
+
+    private static final class Load {
+
+        private final HttpClient client;
+        private final String url;
+        private final String auth;
+        private final List<String> keys;
+        private final Duration interval;
+        private final int batch;
+        private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        private int next;
+
+        Load(HttpClient client, String url, String auth, List<String> keys, Duration interval, int batch) {
+            this.client = client;
+            this.url = url;
+            this.auth = auth;
+            this.keys = keys;
+            this.interval = interval;
+            this.batch = batch;
+        }
+
+        double rate() {
+            return keys.size() * 1000.0 / interval.toMillis();
+        }
+
+        Counts run(Duration duration) throws InterruptedException {
+            AtomicLong offered = new AtomicLong();
+            AtomicLong accepted = new AtomicLong();
+            AtomicLong throttled = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            long skipped = 0;
+
+            long start = System.nanoTime();
+            double due = 0;
+            for (long tick = 1; tick * TICK.toNanos() <= duration.toNanos(); tick++) {
+                // the fraction left over carries into the next tick, so rounding does not drift the rate
+                due += rate() * TICK.toMillis() / 1000.0;
+                int readings = (int) due;
+                due -= readings;
+                for (int sent = 0; sent < readings; sent += batch) {
+                    int size = Math.min(batch, readings - sent);
+                    if (!inFlight.tryAcquire()) {
+                        // the service is answering slower than readings are offered
+                        skipped++;
+                        continue;
+                    }
+                    String body = body(size);
+                    offered.addAndGet(size);
+                    client.sendAsync(HttpRequest.newBuilder(URI.create(url + "/telemetry"))
+                                    .header("Authorization", auth)
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                                    .build(), HttpResponse.BodyHandlers.ofString())
+                            .whenComplete((response, error) -> {
+                                inFlight.release();
+                                if (error != null) {
+                                    failed.incrementAndGet();
+                                } else if (response.statusCode() == 503) {
+                                    throttled.addAndGet(size);
+                                } else if (response.statusCode() == 202) {
+                                    Matcher matcher = ACCEPTED.matcher(response.body());
+                                    accepted.addAndGet(matcher.find() ? Long.parseLong(matcher.group(1)) : 0);
+                                } else {
+                                    failed.incrementAndGet();
+                                }
+                            });
+                }
+                long sleep = start + tick * TICK.toNanos() - System.nanoTime();
+                if (sleep > 0) {
+                    Thread.sleep(Duration.ofNanos(sleep));
+                }
+            }
+            inFlight.acquire(MAX_IN_FLIGHT);
+            inFlight.release(MAX_IN_FLIGHT);
+            return new Counts(offered.get(), accepted.get(), throttled.get(), failed.get(), skipped);
+        }
+
+        private String body(int size) {
+            String now = Instant.now().toString();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            StringBuilder body = new StringBuilder(size * 160).append("{\"readings\":[");
+            for (int i = 0; i < size; i++) {
+                String key = keys.get(next);
+                next = (next + 1) % keys.size();
+                body.append(i == 0 ? "" : ",")
+                        .append('{').append(key)
+                        .append(",\"recordedAt\":\"").append(now)
+                        .append("\",\"latitude\":").append(49 + random.nextDouble() * 5)
+                        .append(",\"longitude\":").append(14 + random.nextDouble() * 10)
+                        .append(",\"odometerKm\":").append(random.nextInt(400_000))
+                        .append(",\"fuelLevel\":").append(random.nextInt(101))
+                        .append('}');
+            }
+            return body.append("]}").toString();
+        }
+    }
+
+    /**
+     * The {@code fleet_telemetry_*} samples of the service, keyed by name and labels.
+     */
+    private static Map<String, Double> scrape(HttpClient client, String url) throws Exception {
+        Map<String, Double> samples = new HashMap<>();
+        String body = client.send(HttpRequest.newBuilder(URI.create(url + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        for (String line : body.split("\n")) {
+            Matcher matcher = METRIC.matcher(line);
+            if (matcher.matches()) {
+                samples.put(matcher.group(1) + "{" + (matcher.group(2) == null ? "" : matcher.group(2)) + "}",
+                        Double.parseDouble(matcher.group(3)));
+            }
+        }
+        return samples;
+    }
+
+    private static double delta(Map<String, Double> before, Map<String, Double> after, String name) {
+        return after.getOrDefault(name + "{}", 0.0) - before.getOrDefault(name + "{}", 0.0);
+    }
+
+    /**
+     * Upper bound, in ms, of the histogram bucket holding the percentile of the lags recorded between the scrapes.
+     */
+    private static String lagPercentile(Map<String, Double> before, Map<String, Double> after, String stage, double p) {
+        TreeMap<Double, Double> cumulative = new TreeMap<>();
+        for (Map.Entry<String, Double> sample : after.entrySet()) {
+            Matcher matcher = LE.matcher(sample.getKey());
+            if (sample.getKey().startsWith("fleet_telemetry_lag_seconds_bucket{")
+                    && sample.getKey().contains("stage=\"" + stage + "\"") && matcher.find()) {
+                double le = matcher.group(1).equals("+Inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(matcher.group(1));
+                cumulative.put(le, sample.getValue() - before.getOrDefault(sample.getKey(), 0.0));
+            }
+        }
+        if (cumulative.isEmpty() || cumulative.lastEntry().getValue() == 0) {
+            return "n/a";
+        }
+        double target = p * cumulative.lastEntry().getValue();
+        for (Map.Entry<Double, Double> entry : cumulative.entrySet()) {
+            if (entry.getValue() >= target) {
+                return entry.getKey().isInfinite() ? "inf" : String.format("%.0f", entry.getKey() * 1000);
+            }
+        }
+        return "inf";
+    }
+}
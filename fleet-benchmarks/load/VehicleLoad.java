@@ -0,0 +1,148 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load against a running fleet-service: {@code concurrency} clients, each sending the next request
+ * as soon as the previous one is answered. Prints throughput and latency percentiles of the measured phase.
+ * <p>
+ * Single-file program, needs nothing but a JDK 21:
+ * <pre>
+ * java fleet-benchmarks/load/VehicleLoad.java --scenario list --concurrency 200 --duration 30
+ * </pre>
+ * Scenarios: {@code list} ({@code GET /vehicles}), {@code get} ({@code GET /vehicles/{id}} over the ids of the first
+ * page) and {@code create} ({@code POST /vehicles} with unique VINs and plate numbers).
+ */
+public class VehicleLoad {
+
+    private static final Pattern ID = Pattern.compile("\"id\":\"([0-9a-f-]{36})\"");
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "url", "http://localhost:8081",
+                "user", "admin:admin",
+                "scenario", "list",
+                "concurrency", "50",
+                "warmup", "10",
+                "duration", "30"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        String url = options.get("url");
+        String scenario = options.get("scenario");
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        String auth = "Basic " + Base64.getEncoder().encodeToString(options.get("user").getBytes(StandardCharsets.UTF_8));
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String runId = Long.toString(System.currentTimeMillis() % 100_000, 36);
+
+        List<String> ids = new ArrayList<>();
+        if (scenario.equals("get")) {
+            String page = client.send(HttpRequest.newBuilder(URI.create(url + "/vehicles?size=100"))
+                    .header("Authorization", auth).build(), HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = ID.matcher(page);
+            while (matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("No vehicles to read, create some first");
+            }
+        }
+
+        Runner runner = () -> {
+            HttpRequest.Builder request = switch (scenario) {
+                case "list" -> HttpRequest.newBuilder(URI.create(url + "/vehicles?page=0&size=20&sort=createdAt,desc"));
+                case "get" -> HttpRequest.newBuilder(URI.create(
+                        url + "/vehicles/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size()))));
+                case "create" -> {
+                    long n = SEQUENCE.incrementAndGet();
+                    String body = """
+                            {"plateNumber":"L%s%d","vin":"LD%s%s","brand":"Toyota","model":"Corolla","year":2022,"status":"ACTIVE"}
+                            """.formatted(runId, n, runId, String.format("%0" + (15 - runId.length()) + "d", n));
+                    yield HttpRequest.newBuilder(URI.create(url + "/vehicles"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body));
+                }
+                default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+            };
+            return client.send(request.header("Authorization", auth).build(), HttpResponse.BodyHandlers.discarding())
+                    .statusCode();
+        };
+
+        System.out.printf("%s x %d clients against %s%n", scenario, concurrency, url);
+        run(runner, concurrency, Duration.ofSeconds(Long.parseLong(options.get("warmup"))), false);
+        run(runner, concurrency, Duration.ofSeconds(Long.parseLong(options.get("duration"))), true);
+    }
+
+    interface Runner {
+        int call() throws Exception;
+    }
+
+    private static void run(Runner runner, int concurrency, Duration duration, boolean report) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        AtomicLong errors = new AtomicLong();
+
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            int client = c;
+            latencies[c] = new long[1024];
+            clients.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        if (runner.call() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (counts[client] == latencies[client].length) {
+                        latencies[client] = Arrays.copyOf(latencies[client], counts[client] * 2);
+                    }
+                    latencies[client][counts[client]++] = System.nanoTime() - start;
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        if (!report) {
+            return;
+        }
+
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int offset = 0;
+        for (int c = 0; c < concurrency; c++) {
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("requests %d, errors %d, throughput %.1f req/s%n",
+                all.length, errors.get(), all.length / (duration.toMillis() / 1000.0));
+        System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,53 @@
+-- Compares deep pages of GET /vehicles in offset mode (OFFSET/LIMIT) and cursor mode
+-- (seek on idx_vehicles_created_at_id, V4 migration). Runs against a scratch copy of the vehicles table.
+--
+--   psql -h localhost -p 5433 -U fleet_user -d fleet_db -v rows=1000000 -f fleet-benchmarks/sql/vehicle-pagination.sql
+
+\if :{?rows}
+\else
+    \set rows 1000000
+\endif
+
+\timing on
+
+DROP SCHEMA IF EXISTS bench_paging CASCADE;
+CREATE SCHEMA bench_paging;
+
+CREATE TABLE bench_paging.vehicles (LIKE public.vehicles INCLUDING ALL);
+
+INSERT INTO bench_paging.vehicles (id, plate_number, vin, brand, model, year, status, created_at, updated_at)
+SELECT gen_random_uuid(),
+       'WA ' || lpad(g::text, 7, '0'),
+       'JH4KA7650M' || lpad(g::text, 7, '0'),
+       'Toyota',
+       'Corolla',
+       2010 + g % 15,
+       'ACTIVE',
+       -- a few rows share a timestamp, so the id tie-breaker is exercised
+       timestamp '2024-01-01' + (g / 3 || ' seconds')::interval,
+       timestamp '2024-01-01' + (g / 3 || ' seconds')::interval
+FROM generate_series(1, :rows) AS g;
+
+VACUUM ANALYZE bench_paging.vehicles;
+
+-- The row the deep page starts after, i.e. what the previous page's nextCursor encodes.
+SELECT created_at AS seek_created_at, id AS seek_id
+FROM bench_paging.vehicles
+ORDER BY created_at DESC, id DESC
+OFFSET (:rows / 2) - 1 LIMIT 1 \gset
+
+\echo '=== offset mode: first page and middle page ==='
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_paging.vehicles ORDER BY created_at DESC, id DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_paging.vehicles ORDER BY created_at DESC, id DESC OFFSET (:rows / 2) LIMIT 20;
+
+\echo '=== cursor mode: first page and middle page ==='
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_paging.vehicles ORDER BY created_at DESC, id DESC LIMIT 21;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_paging.vehicles
+WHERE (created_at, id) < (:'seek_created_at', :'seek_id')
+ORDER BY created_at DESC, id DESC LIMIT 21;
+
+DROP SCHEMA bench_paging CASCADE;
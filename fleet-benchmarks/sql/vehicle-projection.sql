@@ -0,0 +1,24 @@
+-- Compares a full GET /vehicles page with a sparse one (fields=id,plateNumber,status): bytes read per row and the
+-- width of the rows the server sends to the application. Runs against the vehicles table as it is.
+--
+--   psql -h localhost -p 5433 -U fleet_user -d fleet_db -f fleet-benchmarks/sql/vehicle-projection.sql
+
+\echo '=== average bytes per row: all columns vs id, plate_number, status, version ==='
+SELECT count(*)                                                                  AS rows,
+       round(avg(pg_column_size(v.*)))                                           AS all_columns,
+       round(avg(pg_column_size(ROW (v.id, v.plate_number, v.status, v.version)))) AS sparse
+FROM vehicles v;
+
+\echo '=== full page (fields absent) ==='
+EXPLAIN (ANALYZE, BUFFERS, VERBOSE)
+SELECT id, brand, created_at, model, plate_number, status, updated_at, version, vin, year
+FROM vehicles
+ORDER BY created_at DESC
+LIMIT 100 OFFSET 10000;
+
+\echo '=== sparse page (fields=id,plateNumber,status) ==='
+EXPLAIN (ANALYZE, BUFFERS, VERBOSE)
+SELECT id, plate_number, status, version
+FROM vehicles
+ORDER BY created_at DESC
+LIMIT 100 OFFSET 10000;
@@ -0,0 +1,93 @@
+-- Compares GET /vehicles?q= before and after the trigram search column (V3 migration).
+-- Runs against a scratch copy of the vehicles table, so the application data is untouched.
+--
+--   psql -h localhost -p 5433 -U fleet_user -d fleet_db -v rows=1000000 -f fleet-benchmarks/sql/vehicle-search.sql
+
+\if :{?rows}
+\else
+    \set rows 1000000
+\endif
+
+\timing on
+
+DROP SCHEMA IF EXISTS bench_search CASCADE;
+CREATE SCHEMA bench_search;
+
+-- Same columns, generated search_text and indexes as public.vehicles.
+CREATE TABLE bench_search.vehicles (LIKE public.vehicles INCLUDING ALL);
+
+INSERT INTO bench_search.vehicles (id, plate_number, vin, brand, model, year, status, created_at, updated_at)
+SELECT gen_random_uuid(),
+       (ARRAY['WA', 'KR', 'PO', 'GD', 'WR'])[1 + g % 5] || ' ' || lpad(g::text, 7, '0'),
+       'JH4KA7650M' || lpad(g::text, 7, '0'),
+       (ARRAY['Toyota', 'Skoda', 'Volkswagen', 'Ford', 'Renault', 'Kia', 'Hyundai', 'Opel'])[1 + g % 8],
+       (ARRAY['Corolla', 'Octavia', 'Passat', 'Transit', 'Clio', 'Ceed', 'Tucson', 'Astra', 'Fabia', 'Focus'])[1 + g % 10],
+       2010 + g % 15,
+       (ARRAY['ACTIVE', 'IN_SERVICE', 'SOLD'])[1 + g % 3],
+       now() - (g || ' minutes')::interval,
+       now() - (g || ' minutes')::interval
+FROM generate_series(1, :rows) AS g;
+
+VACUUM ANALYZE bench_search.vehicles;
+
+-- Each query shape is run for a selective term (one VIN), a medium one (one plate prefix)
+-- and a broad one (a model name matching every tenth row), with the page + count pair
+-- that Spring Data issues for one request.
+
+\echo '=== legacy: lower(col) LIKE %q% OR-ed over four columns ==='
+\set q 0424242
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%';
+
+\set q 'kr 00012'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%';
+
+\set q octavia
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles
+WHERE lower(plate_number) LIKE '%' || :'q' || '%' OR lower(vin) LIKE '%' || :'q' || '%'
+   OR lower(brand) LIKE '%' || :'q' || '%' OR lower(model) LIKE '%' || :'q' || '%';
+
+\echo '=== trigram: search_text LIKE %q% ==='
+\set q 0424242
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%';
+
+\set q 'kr 00012'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%';
+
+\set q octavia
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%'
+ORDER BY created_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM bench_search.vehicles WHERE search_text LIKE '%' || :'q' || '%';
+
+DROP SCHEMA bench_search CASCADE;
@@ -0,0 +1,63 @@
+-- Compares point-in-time fleet composition (GET /vehicles/status-history/composition) computed from the whole
+-- status log with the latest change of each vehicle, and computed as the service does: the vehicle_status_days row
+-- of the day before plus the transitions since midnight, found through the BRIN index on changed_at (V10 migration).
+-- Also compares the size of that BRIN index with a btree on the same column. Runs against a scratch copy of
+-- vehicle_status_changes holding about five years of transitions.
+--
+--   psql -h localhost -p 5433 -U fleet_user -d fleet_db -v vehicles=50000 -v changes=200 -f fleet-benchmarks/sql/vehicle-status-history.sql
+
+\if :{?vehicles}
+\else
+    \set vehicles 50000
+\endif
+\if :{?changes}
+\else
+    \set changes 200
+\endif
+
+\timing on
+
+DROP SCHEMA IF EXISTS bench_history CASCADE;
+CREATE SCHEMA bench_history;
+
+CREATE TABLE bench_history.vehicle_status_changes (LIKE public.vehicle_status_changes INCLUDING ALL);
+
+-- Every vehicle alternates between ACTIVE and IN_SERVICE; rows are inserted in changed_at order, as the triggers do
+INSERT INTO bench_history.vehicle_status_changes (vehicle_id, from_status, to_status, changed_at)
+SELECT ('00000000-0000-0000-0000-' || lpad(v::text, 12, '0'))::uuid,
+       CASE WHEN k = 0 THEN NULL WHEN k % 2 = 1 THEN 'ACTIVE' ELSE 'IN_SERVICE' END,
+       CASE WHEN k % 2 = 0 THEN 'ACTIVE' ELSE 'IN_SERVICE' END,
+       timestamptz '2021-10-01 00:00Z'
+           + (k::bigint * :vehicles + v) * (interval '5 years' / (:vehicles::bigint * :changes))
+FROM generate_series(0, :changes - 1) AS k, generate_series(0, :vehicles - 1) AS v
+ORDER BY k, v;
+
+VACUUM ANALYZE bench_history.vehicle_status_changes;
+
+\echo '=== whole log: latest change of each vehicle before 2024-03-01 13:37 ==='
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT to_status, count(*)
+FROM (SELECT DISTINCT ON (vehicle_id) to_status
+      FROM bench_history.vehicle_status_changes
+      WHERE changed_at < '2024-03-01 13:37Z'
+      ORDER BY vehicle_id, changed_at DESC) AS latest
+WHERE to_status IS NOT NULL
+GROUP BY to_status;
+
+\echo '=== day row plus BRIN range: transitions between 2024-03-01 00:00 and 13:37 ==='
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT t.status, sum(t.delta) AS net
+FROM bench_history.vehicle_status_changes c
+CROSS JOIN LATERAL (VALUES (c.to_status, 1), (c.from_status, -1)) AS t (status, delta)
+WHERE c.changed_at >= '2024-03-01 00:00Z' AND c.changed_at < '2024-03-01 13:37Z' AND t.status IS NOT NULL
+GROUP BY t.status;
+
+\echo '=== index sizes: BRIN vs. btree on changed_at ==='
+CREATE INDEX bench_history_changed_at_btree ON bench_history.vehicle_status_changes (changed_at);
+SELECT c.relname, pg_size_pretty(pg_relation_size(c.oid)) AS size
+FROM pg_class c
+JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname = 'bench_history'
+ORDER BY c.relname;
+
+DROP SCHEMA bench_history CASCADE;
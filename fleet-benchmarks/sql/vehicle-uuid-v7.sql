@@ -0,0 +1,52 @@
+-- Compares random (v4) and time-ordered (v7, V6 migration) primary keys for vehicles: insert time and the size
+-- of the primary key index. Rows are inserted in committed batches of 1000, like POST /vehicles/batch, into two
+-- scratch tables shaped like public.vehicles with only the primary key index.
+--
+--   psql -h localhost -p 5433 -U fleet_user -d fleet_db -v rows=5000000 -f fleet-benchmarks/sql/vehicle-uuid-v7.sql
+
+\if :{?rows}
+\else
+    \set rows 5000000
+\endif
+
+DROP SCHEMA IF EXISTS bench_uuid CASCADE;
+CREATE SCHEMA bench_uuid;
+
+CREATE TABLE bench_uuid.vehicles_v4 (LIKE public.vehicles INCLUDING DEFAULTS);
+ALTER TABLE bench_uuid.vehicles_v4 ADD PRIMARY KEY (id);
+CREATE TABLE bench_uuid.vehicles_v7 (LIKE public.vehicles INCLUDING DEFAULTS);
+ALTER TABLE bench_uuid.vehicles_v7 ADD PRIMARY KEY (id);
+
+CREATE PROCEDURE bench_uuid.fill(target regclass, key_function text, total int)
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    FOR batch_start IN 1..total BY 1000 LOOP
+        EXECUTE format(
+            'INSERT INTO %s (id, plate_number, vin, brand, model, year, status, created_at, updated_at, version)
+             SELECT %s(), ''WA '' || g, ''JH4KA7650M'' || lpad(g::text, 7, ''0''), ''Toyota'', ''Corolla'',
+                    2010 + g %% 15, ''ACTIVE'', localtimestamp, localtimestamp, 0
+             FROM generate_series($1, least($1 + 999, $2)) AS g',
+            target, key_function)
+        USING batch_start, total;
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+\timing on
+
+\echo '=== v4: gen_random_uuid() ==='
+CALL bench_uuid.fill('bench_uuid.vehicles_v4', 'gen_random_uuid', :rows);
+
+\echo '=== v7: uuid_generate_v7() ==='
+CALL bench_uuid.fill('bench_uuid.vehicles_v7', 'uuid_generate_v7', :rows);
+
+\timing off
+
+\echo '=== primary key index size ==='
+SELECT 'v4' AS keys, pg_size_pretty(pg_relation_size('bench_uuid.vehicles_v4_pkey')) AS pkey_size
+UNION ALL
+SELECT 'v7', pg_size_pretty(pg_relation_size('bench_uuid.vehicles_v7_pkey'));
+
+DROP SCHEMA bench_uuid CASCADE;
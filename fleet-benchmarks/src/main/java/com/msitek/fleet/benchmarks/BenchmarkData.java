@@ -0,0 +1,51 @@
+package com.msitek.fleet.benchmarks;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deterministic vehicles shaped like real rows, shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final VehicleStatus[] STATUSES = VehicleStatus.values();
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_456_000);
+
+    private BenchmarkData() {
+    }
+
+    static List<Vehicle> vehicles(int count) {
+        List<Vehicle> vehicles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime createdAt = START.plusMinutes(i);
+            vehicles.add(Vehicle.builder()
+                    .id(new UUID(0x018d0000_0000_7000L | i, 0x8000_0000_0000_0000L | i))
+                    .plateNumber(String.format("WA %05d", i))
+                    .vin(String.format("JH4KA7650M%07d", i))
+                    .brand("Toyota")
+                    .model("Corolla")
+                    .year(2010 + i % 15)
+                    .status(STATUSES[i % STATUSES.length])
+                    .createdAt(createdAt)
+                    .updatedAt(createdAt.plusDays(1))
+                    .version((long) i % 3)
+                    .build());
+        }
+        return vehicles;
+    }
+
+    static PageResponse<VehicleResponse> page(int size) {
+        List<VehicleResponse> content = vehicles(size).stream()
+                .map(v -> new VehicleResponse(v.getId(), v.getPlateNumber(), v.getVin(), v.getBrand(), v.getModel(),
+                        v.getYear(), v.getStatus(), v.getCreatedAt(), v.getUpdatedAt(), v.getVersion()))
+                .toList();
+        return new PageResponse<>(content, 3, size, 250_000L, 250_000 / size);
+    }
+}
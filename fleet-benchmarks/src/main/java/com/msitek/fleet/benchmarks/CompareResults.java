@@ -0,0 +1,82 @@
+package com.msitek.fleet.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the score change of every benchmark between two JMH JSON result files ({@code -rf json -rff file}).
+ * <pre>
+ * java -cp target/benchmarks.jar com.msitek.fleet.benchmarks.CompareResults before.json after.json
+ * </pre>
+ * A change is flagged when the two scores are further apart than the sum of their error margins.
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CompareResults <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(args[0]);
+        Map<String, JsonNode> candidate = read(args[1]);
+
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode after = entry.getValue().get("primaryMetric");
+            JsonNode before = baseline.containsKey(entry.getKey())
+                    ? baseline.get(entry.getKey()).get("primaryMetric")
+                    : null;
+            String unit = after.get("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14s %9s%n", entry.getKey(), "-", format(after, unit), "new");
+                continue;
+            }
+
+            double was = before.get("score").asDouble();
+            double is = after.get("score").asDouble();
+            double margin = errorOf(before) + errorOf(after);
+            String change = String.format("%+.1f%%", (is - was) / was * 100);
+            if (Math.abs(is - was) <= margin) {
+                change += " ~";
+            }
+            System.out.printf("%-70s %14s %14s %9s%n", entry.getKey(), format(before, unit), format(after, unit), change);
+        }
+        System.out.println("~ = within the error margins of the two runs");
+    }
+
+    private static Map<String, JsonNode> read(String file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(file))) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .replace("com.msitek.fleet.benchmarks.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            key.append(" t=").append(result.get("threads").asInt());
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String format(JsonNode metric, String unit) {
+        return String.format("%.2f %s", metric.get("score").asDouble(), unit);
+    }
+}
@@ -0,0 +1,54 @@
+package com.msitek.fleet.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a {@code GET /vehicles} response body, with an {@link ObjectMapper} configured the way
+ * Spring Boot configures the one used by the message converters (ISO dates, JSR-310 module), in each of the
+ * negotiable encodings. {@link PayloadSizes} prints the matching body sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private ObjectWriter writer;
+    private PageResponse<VehicleResponse> page;
+
+    @Setup
+    public void setUp() {
+        writer = PayloadSizes.mapper(format).writer();
+        page = BenchmarkData.page(pageSize);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
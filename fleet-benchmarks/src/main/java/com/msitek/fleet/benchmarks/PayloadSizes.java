@@ -0,0 +1,52 @@
+package com.msitek.fleet.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prints the size of a {@code GET /vehicles} body in each negotiable encoding, plain and gzip-compressed:
+ * <pre>
+ * java -cp fleet-benchmarks/target/benchmarks.jar com.msitek.fleet.benchmarks.PayloadSizes
+ * </pre>
+ */
+public final class PayloadSizes {
+
+    private static final String[] FORMATS = {"json", "cbor", "smile"};
+
+    private PayloadSizes() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%-9s %-6s %10s %10s%n", "pageSize", "format", "bytes", "gzip");
+        for (int pageSize : new int[] {20, 100, 1000}) {
+            PageResponse<VehicleResponse> page = BenchmarkData.page(pageSize);
+            for (String format : FORMATS) {
+                byte[] body = mapper(format).writeValueAsBytes(page);
+                System.out.printf("%-9d %-6s %10d %10d%n", pageSize, format, body.length, gzip(body).length);
+            }
+        }
+    }
+
+    static ObjectMapper mapper(String format) {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,162 @@
+package com.msitek.fleet.benchmarks;
+
+import com.msitek.fleet.fleetservice.position.domain.VehiclePosition;
+import com.msitek.fleet.fleetservice.position.service.PositionIndex;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link PositionIndex} with {@code vehicles} vehicles spread over Poland, most of them in a few cities: nearest-10
+ * and 5 km box queries, against a scan of all positions, and position updates. The {@code underUpdates} group runs
+ * three query threads while a fourth keeps moving vehicles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionIndexBenchmark {
+
+    private static final double[][] CITIES = {
+            {52.23, 21.01}, {50.06, 19.94}, {51.11, 17.03}, {52.41, 16.93}, {54.35, 18.65}, {51.76, 19.46}
+    };
+    // about 5 km
+    private static final double BOX_DEGREES = 0.045;
+    private static final Set<VehicleStatus> IN_SERVICE = Set.of(VehicleStatus.IN_SERVICE);
+
+    @State(Scope.Benchmark)
+    public static class Fleet {
+
+        @Param({"100000"})
+        int vehicles;
+
+        PositionIndex index;
+        VehiclePosition[] positions;
+        final AtomicLong clock = new AtomicLong();
+
+        @Setup
+        public void setUp() {
+            index = new PositionIndex(0.05);
+            positions = new VehiclePosition[vehicles];
+            Random random = new Random(42);
+            for (int i = 0; i < vehicles; i++) {
+                double[] point = point(random);
+                // one in ten vehicles is in service
+                VehicleStatus status = i % 10 == 0 ? VehicleStatus.IN_SERVICE : VehicleStatus.ACTIVE;
+                positions[i] = new VehiclePosition(UUID.randomUUID(), point[0], point[1], Instant.EPOCH, status);
+                index.update(positions[i]);
+            }
+        }
+
+        VehiclePosition moved(int i, Random random) {
+            VehiclePosition current = positions[i];
+            return new VehiclePosition(current.vehicleId(),
+                    current.latitude() + (random.nextDouble() - 0.5) * 0.01,
+                    current.longitude() + (random.nextDouble() - 0.5) * 0.01,
+                    Instant.EPOCH.plusMillis(clock.incrementAndGet()),
+                    current.status());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Queries {
+
+        final Random random = new Random();
+        final double[][] points = new double[1024][];
+        int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < points.length; i++) {
+                points[i] = point(random);
+            }
+        }
+
+        double[] next() {
+            return points[next++ & 1023];
+        }
+    }
+
+    @Benchmark
+    public PositionIndex.Hits nearest(Fleet fleet, Queries queries) {
+        double[] point = queries.next();
+        return fleet.index.nearest(point[0], point[1], Double.POSITIVE_INFINITY, Set.of(), 10);
+    }
+
+    @Benchmark
+    public PositionIndex.Hits nearestInService(Fleet fleet, Queries queries) {
+        double[] point = queries.next();
+        return fleet.index.nearest(point[0], point[1], Double.POSITIVE_INFINITY, IN_SERVICE, 10);
+    }
+
+    @Benchmark
+    public PositionIndex.Hits within(Fleet fleet, Queries queries) {
+        double[] point = queries.next();
+        return fleet.index.within(point[0] - BOX_DEGREES / 2, point[1] - BOX_DEGREES / 2,
+                point[0] + BOX_DEGREES / 2, point[1] + BOX_DEGREES / 2, Set.of(), 10000);
+    }
+
+    /**
+     * What the index replaces: the distance to every vehicle, keeping the ten nearest.
+     */
+    @Benchmark
+    public PriorityQueue<double[]> nearestByScan(Fleet fleet, Queries queries) {
+        double[] point = queries.next();
+        PriorityQueue<double[]> best = new PriorityQueue<>(11, (a, b) -> Double.compare(b[0], a[0]));
+        for (VehiclePosition position : fleet.positions) {
+            best.add(new double[] {PositionIndex.distanceKm(point[0], point[1], position.latitude(), position.longitude())});
+            if (best.size() > 10) {
+                best.poll();
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public void update(Fleet fleet, Queries queries) {
+        int i = queries.random.nextInt(fleet.vehicles);
+        fleet.index.update(fleet.moved(i, queries.random));
+    }
+
+    @Benchmark
+    @Group("underUpdates")
+    @GroupThreads(3)
+    public PositionIndex.Hits underUpdatesNearest(Fleet fleet, Queries queries) {
+        return nearest(fleet, queries);
+    }
+
+    @Benchmark
+    @Group("underUpdates")
+    @GroupThreads(1)
+    public void underUpdatesUpdate(Fleet fleet, Queries queries) {
+        update(fleet, queries);
+    }
+
+    private static double[] point(Random random) {
+        if (random.nextInt(10) < 8) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            return new double[] {city[0] + random.nextGaussian() * 0.1, city[1] + random.nextGaussian() * 0.15};
+        }
+        return new double[] {49 + random.nextDouble() * 5.8, 14.1 + random.nextDouble() * 10};
+    }
+}
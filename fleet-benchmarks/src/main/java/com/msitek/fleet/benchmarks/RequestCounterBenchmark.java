@@ -0,0 +1,56 @@
+package com.msitek.fleet.benchmarks;
+
+import com.msitek.fleet.fleetservice.stats.RequestCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestCounter#increment} from several threads hitting one shared counter, as concurrent requests do,
+ * spread over the service's read routes. Includes the {@link System#nanoTime()} call the filter makes anyway.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RequestCounterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Counter {
+
+        RequestCounter requestCounter;
+        String[] routes;
+
+        @Setup
+        public void setUp() {
+            requestCounter = new RequestCounter(200);
+            routes = new String[] {
+                    "/vehicles", "/vehicles/{id}", "/vehicles/by-vin/{vin}", "/vehicles/by-plate/{plateNumber}"
+            };
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+
+    @Benchmark
+    public void increment(Counter counter, Cursor cursor) {
+        String route = counter.routes[cursor.next++ % counter.routes.length];
+        counter.requestCounter.increment("GET", route, 200, System.nanoTime());
+    }
+}
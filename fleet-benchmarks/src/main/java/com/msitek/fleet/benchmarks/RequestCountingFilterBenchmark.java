@@ -0,0 +1,79 @@
+package com.msitek.fleet.benchmarks;
+
+import com.msitek.fleet.fleetservice.stats.RequestCounter;
+import com.msitek.fleet.fleetservice.stats.RequestCountingFilter;
+import com.msitek.fleet.fleetservice.stats.RequestLatencyRecorder;
+import com.msitek.fleet.fleetservice.stats.RequestMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link RequestCountingFilter}: a request through the filter against the same request
+ * handed straight to the (empty) rest of the chain. {@code registry=none} publishes to a registry without
+ * backends, so the difference to {@code prometheus} is the cost of the Micrometer timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestCountingFilterBenchmark {
+
+    @Param({"none", "prometheus"})
+    public String registry;
+
+    private RequestCountingFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = "prometheus".equals(registry)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        filter = new RequestCountingFilter(
+                new RequestCounter(200),
+                new RequestLatencyRecorder(200),
+                new RequestMetrics(meterRegistry, 200)
+        );
+        request = new MockHttpServletRequest("GET", "/vehicles/018d0000-0000-7000-8000-000000000001");
+        response = new MockHttpServletResponse();
+        response.setStatus(200);
+        // what the DispatcherServlet leaves behind after matching a handler
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/vehicles/{id}");
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void baseline() throws ServletException, IOException {
+        chain.doFilter(request, response);
+    }
+
+    @Benchmark
+    public void filter() throws ServletException, IOException {
+        filter.doFilter(request, response, chain);
+    }
+}
@@ -0,0 +1,66 @@
+package com.msitek.fleet.benchmarks;
+
+import com.msitek.fleet.fleetservice.stats.RequestLatencyRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestLatencyRecorder#record} from several threads into one shared recorder, with latencies spread
+ * from microseconds to a second so recordings land in different buckets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RequestLatencyRecorderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Recorder {
+
+        RequestLatencyRecorder recorder;
+        String[] routes;
+
+        @Setup
+        public void setUp() {
+            recorder = new RequestLatencyRecorder(200);
+            routes = new String[] {
+                    "/vehicles", "/vehicles/{id}", "/vehicles/by-vin/{vin}", "/vehicles/by-plate/{plateNumber}"
+            };
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+        long[] latencies;
+
+        @Setup
+        public void setUp() {
+            latencies = new long[1024];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = (long) Math.pow(10, 3 + ThreadLocalRandom.current().nextDouble(6));
+            }
+        }
+    }
+
+    @Benchmark
+    public void record(Recorder recorder, Cursor cursor) {
+        int i = cursor.next++;
+        recorder.recorder.record("GET", recorder.routes[i & 3], 200, cursor.latencies[i & 1023]);
+    }
+}
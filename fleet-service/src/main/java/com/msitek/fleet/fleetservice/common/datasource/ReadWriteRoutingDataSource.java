@@ -0,0 +1,88 @@
+package com.msitek.fleet.fleetservice.common.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else.
+ * <p>
+ * A read-only transaction goes to the replica only if {@link ReplicaMonitor} has it in rotation and it has caught
+ * up past the calling client's latest write, or past every write inside
+ * {@link ReplicaReads#latest(java.util.function.Supplier)}. Otherwise, and when a replica connection cannot be
+ * opened, the read falls back to the primary. Read-write transactions record their commit in {@link RecentWrites};
+ * writes outside a transaction are not tracked.
+ * <p>
+ * Must sit behind a {@link LazyConnectionDataSourceProxy}, which defers fetching the connection to the first
+ * statement: the transaction manager asks for it before the read-only flag is bound to the thread.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaMonitor monitor;
+    private final RecentWrites recentWrites;
+
+    public ReadWriteRoutingDataSource(
+            DataSource primary,
+            DataSource replica,
+            ReplicaMonitor monitor,
+            RecentWrites recentWrites
+    ) {
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordCommit();
+            return primary.getConnection();
+        }
+
+        long writtenAt = ReplicaReads.isLatestRequired()
+                ? recentWrites.latest()
+                : recentWrites.of(currentClient());
+        if (monitor.canServe(writtenAt)) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                monitor.markDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    private void recordCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String client = currentClient();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWrites.record(client);
+            }
+        });
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
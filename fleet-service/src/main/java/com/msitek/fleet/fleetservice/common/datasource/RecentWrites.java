@@ -0,0 +1,58 @@
+package com.msitek.fleet.fleetservice.common.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When the latest writes were committed ({@link System#nanoTime()}), per client (the authenticated user) and
+ * overall. A replica that has caught up past a client's latest write shows that client its own writes.
+ * <p>
+ * Per-client times are forgotten after {@code retention}; set it to at least the maximum replica lag plus the
+ * poll interval, after which any replica in rotation has caught up past them anyway.
+ */
+public class RecentWrites {
+
+    /**
+     * No write to wait for.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private final Cache<String, Long> byClient;
+    private final AtomicLong latest = new AtomicLong(NONE);
+
+    public RecentWrites(long maximumClients, Duration retention) {
+        this.byClient = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Records a write the client has just committed.
+     */
+    public void record(String client) {
+        long now = System.nanoTime();
+        latest.accumulateAndGet(now, Math::max);
+        if (client != null) {
+            byClient.asMap().merge(client, now, Math::max);
+        }
+    }
+
+    /**
+     * Commit time of the client's latest write, {@link #NONE} if it has not written recently.
+     */
+    public long of(String client) {
+        Long writtenAt = client == null ? null : byClient.getIfPresent(client);
+        return writtenAt == null ? NONE : writtenAt;
+    }
+
+    /**
+     * Commit time of the latest write of any client, {@link #NONE} if there was none.
+     */
+    public long latest() {
+        return latest.get();
+    }
+}
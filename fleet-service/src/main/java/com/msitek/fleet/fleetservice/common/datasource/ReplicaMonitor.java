@@ -0,0 +1,155 @@
+package com.msitek.fleet.fleetservice.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks how far a streaming replica is behind the primary, in WAL positions (LSNs as byte offsets).
+ * <p>
+ * Every poll reads the primary's current position, then the position the replica has replayed. The replica has
+ * caught up with the newest poll whose primary position it has reached: it holds every write committed before that
+ * poll started. Its lag is the age of that poll, so it is measured on this process's clock and stays zero while
+ * the primary is idle. A replica that cannot be queried, or lags by more than {@code maxLag}, serves no reads until
+ * a later poll finds it caught up again.
+ * <p>
+ * Publishes {@code fleet_datasource_replica_lag_seconds} and {@code fleet_datasource_replica_available}.
+ */
+@Slf4j
+public class ReplicaMonitor implements MeterBinder, AutoCloseable {
+
+    private static final String PRIMARY_POSITION = "select (pg_current_wal_lsn() - '0/0')::bigint";
+
+    /**
+     * A server that is not in recovery (a promoted replica, or the primary itself) has replayed all it wrote.
+     */
+    private static final String REPLAYED_POSITION =
+            "select (coalesce(pg_last_wal_replay_lsn(), pg_current_wal_lsn()) - '0/0')::bigint";
+
+    private record Sample(long nanos, long position) {}
+
+    /**
+     * {@code lagNanos} is {@link Long#MAX_VALUE} while unknown.
+     */
+    private record State(boolean reachable, long caughtUpNanos, long lagNanos) {
+
+        static final State DOWN = new State(false, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagNanos;
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    private volatile State state = State.DOWN;
+    private ScheduledFuture<?> polling;
+
+    public ReplicaMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    /**
+     * Polls now, on the calling thread so reads are routed from the start, and then every {@code interval}.
+     */
+    public void start(TaskScheduler scheduler, Duration interval) {
+        poll();
+        polling = scheduler.scheduleWithFixedDelay(this::poll, Instant.now().plus(interval), interval);
+    }
+
+    @Override
+    public void close() {
+        if (polling != null) {
+            polling.cancel(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("fleet.datasource.replica.lag", this,
+                        TimeUnit.NANOSECONDS, monitor -> monitor.state.lagNanos == Long.MAX_VALUE
+                                ? Double.NaN
+                                : monitor.state.lagNanos)
+                .description("Age of the newest primary WAL position the replica has replayed")
+                .register(registry);
+        Gauge.builder("fleet.datasource.replica.available", this,
+                        monitor -> monitor.canServe(RecentWrites.NONE) ? 1 : 0)
+                .description("1 while reads may be routed to the replica")
+                .register(registry);
+    }
+
+    public void poll() {
+        try {
+            // Taken first: the primary position read afterwards covers every write committed before this instant
+            long nanos = System.nanoTime();
+            long primaryPosition = primary.queryForObject(PRIMARY_POSITION, Long.class);
+            long replayedPosition = replica.queryForObject(REPLAYED_POSITION, Long.class);
+            update(nanos, primaryPosition, replayedPosition);
+        } catch (RuntimeException e) {
+            markDown(e);
+        }
+    }
+
+    /**
+     * Whether the replica may serve a read that must see every write committed up to {@code writtenAtNanos}
+     * ({@link System#nanoTime()}, or {@link RecentWrites#NONE}).
+     */
+    public boolean canServe(long writtenAtNanos) {
+        State current = state;
+        return current.reachable && current.lagNanos <= maxLagNanos && current.caughtUpNanos >= writtenAtNanos;
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful poll.
+     */
+    public void markDown(Exception cause) {
+        if (state.reachable) {
+            log.warn("Replica unavailable, reading from the primary: {}", cause.getMessage());
+        }
+        state = State.DOWN;
+    }
+
+    synchronized void update(long nanos, long primaryPosition, long replayedPosition) {
+        samples.addLast(new Sample(nanos, primaryPosition));
+        // The oldest sample kept is the newest one from before the max-lag window, so lag beyond it still shows
+        while (samples.size() > 1 && secondOldest().nanos <= nanos - maxLagNanos) {
+            samples.removeFirst();
+        }
+
+        // Unknown, and too far behind to serve reads, if not even the oldest sample is replayed
+        State next = new State(true, Long.MIN_VALUE, Long.MAX_VALUE);
+        for (Iterator<Sample> it = samples.descendingIterator(); it.hasNext(); ) {
+            Sample sample = it.next();
+            if (sample.position <= replayedPosition) {
+                next = new State(true, sample.nanos, nanos - sample.nanos);
+                break;
+            }
+        }
+
+        State previous = state;
+        state = next;
+        if (!previous.reachable) {
+            log.info("Replica reachable, replayed up to WAL position {}", replayedPosition);
+        }
+    }
+
+    private Sample secondOldest() {
+        Iterator<Sample> it = samples.iterator();
+        it.next();
+        return it.next();
+    }
+}
@@ -0,0 +1,34 @@
+package com.msitek.fleet.fleetservice.common.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Consistency of the current thread's replica reads. By default a read only has to see the calling client's own
+ * writes; {@link #latest(Supplier)} raises that to every write, for results that outlive the request and are
+ * served to other clients, such as cache entries.
+ * <p>
+ * Has no effect when reads are not routed to a replica.
+ */
+public final class ReplicaReads {
+
+    private static final ThreadLocal<Boolean> LATEST = new ThreadLocal<>();
+
+    private ReplicaReads() {
+    }
+
+    public static <T> T latest(Supplier<T> reads) {
+        Boolean outer = LATEST.get();
+        LATEST.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (outer == null) {
+                LATEST.remove();
+            }
+        }
+    }
+
+    static boolean isLatestRequired() {
+        return LATEST.get() != null;
+    }
+}
@@ -1,11 +1,16 @@
 package com.msitek.fleet.fleetservice.common.error;
 
+import com.msitek.fleet.fleetservice.telemetry.exception.TelemetryQueueFullException;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehicleChangesExpiredException;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleConflictException;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleNotFoundException;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehiclePreconditionFailedException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
@@ -67,12 +72,49 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, message, request.getRequestURI(), null);
     }
 
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<ApiError> handleMissingParameter(
+            MissingServletRequestParameterException ex,
+            HttpServletRequest request
+    ) {
+        String message = "Missing parameter '" + ex.getParameterName() + "'";
+        return build(HttpStatus.BAD_REQUEST, message, request.getRequestURI(), null);
+    }
+
     @ExceptionHandler(VehicleConflictException.class)
     public ResponseEntity<ApiError> handleConflict(
             VehicleConflictException ex,
             HttpServletRequest request
     ) {
-        return build(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI(), null);
+        Map<String, Object> details = ex.getField() == null ? null : Map.of("field", ex.getField());
+        return build(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI(), details);
+    }
+
+    @ExceptionHandler(VehiclePreconditionFailedException.class)
+    public ResponseEntity<ApiError> handlePreconditionFailed(
+            VehiclePreconditionFailedException ex,
+            HttpServletRequest request
+    ) {
+        return build(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), request.getRequestURI(), null);
+    }
+
+    @ExceptionHandler(VehicleChangesExpiredException.class)
+    public ResponseEntity<ApiError> handleChangesExpired(
+            VehicleChangesExpiredException ex,
+            HttpServletRequest request
+    ) {
+        return build(HttpStatus.GONE, ex.getMessage(), request.getRequestURI(), null);
+    }
+
+    @ExceptionHandler(TelemetryQueueFullException.class)
+    public ResponseEntity<ApiError> handleTelemetryQueueFull(
+            TelemetryQueueFullException ex,
+            HttpServletRequest request
+    ) {
+        ApiError body = build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request.getRequestURI(), null).getBody();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
     }
 
 
@@ -0,0 +1,43 @@
+package com.msitek.fleet.fleetservice.common.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (RFC 9562, version 7) for primary keys.
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, so new keys land on the right-hand edge of the primary key
+ * B-tree instead of on a random leaf. The 12 bits after the version are a counter that starts at a random value
+ * every millisecond and is incremented for each id generated within it; if it runs out, the timestamp is borrowed
+ * from the next millisecond. Ids from one JVM are therefore strictly increasing, also across threads. The remaining
+ * 62 bits are random, as in {@link UUID#randomUUID()}.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Unix millis << 12 | counter of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long now = System.currentTimeMillis();
+        long state;
+        long next;
+        do {
+            state = LAST.get();
+            next = now > state >>> 12
+                    // random start leaves at least 2048 increments before borrowing from the next millisecond
+                    ? now << 12 | ThreadLocalRandom.current().nextInt(1 << 11)
+                    : state + 1;
+        } while (!LAST.compareAndSet(state, next));
+
+        long mostSigBits = next >>> 12 << 16 | 0x7000L | next & 0xFFFL;
+        long leastSigBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
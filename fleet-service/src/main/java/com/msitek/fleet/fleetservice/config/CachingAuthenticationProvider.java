@@ -0,0 +1,90 @@
+package com.msitek.fleet.fleetservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Remembers successful username/password authentications for a short time, so that stateless HTTP Basic clients
+ * do not pay for a BCrypt verification on every request.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 of the username and password under a key generated at startup, so neither
+ * the password nor a hash that could be attacked offline without that key is kept. Failed attempts are never
+ * cached and always reach the delegate; a changed password or disabled user takes effect once the entry expires.
+ */
+final class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final Mac mac;
+    private final Cache<String, Authentication> verified;
+
+    CachingAuthenticationProvider(AuthenticationProvider delegate, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        try {
+            this.mac = Mac.getInstance("HmacSHA256");
+            this.mac.init(KeyGenerator.getInstance("HmacSHA256").generateKey());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = key(authentication.getName(), password);
+        Authentication cached = verified.getIfPresent(key);
+        if (cached != null) {
+            // a fresh token per request, since the security context of each request may be modified independently
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    cached.getPrincipal(), null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private String key(String username, String password) {
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        byte[] secret = password.getBytes(StandardCharsets.UTF_8);
+        // length-prefixed, so that no two username/password pairs share an input
+        byte[] input = ByteBuffer.allocate(4 + user.length + secret.length)
+                .putInt(user.length)
+                .put(user)
+                .put(secret)
+                .array();
+        try {
+            Mac instance = (Mac) mac.clone();
+            return HexFormat.of().formatHex(instance.doFinal(input));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 cannot be cloned", e);
+        }
+    }
+}
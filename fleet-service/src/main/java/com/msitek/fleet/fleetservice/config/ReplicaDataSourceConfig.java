@@ -0,0 +1,120 @@
+package com.msitek.fleet.fleetservice.config;
+
+import com.msitek.fleet.fleetservice.common.datasource.ReadWriteRoutingDataSource;
+import com.msitek.fleet.fleetservice.common.datasource.RecentWrites;
+import com.msitek.fleet.fleetservice.common.datasource.ReplicaMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Reads from a streaming replica of the primary database, enabled by setting {@code fleet.datasource.replica.url}.
+ * Without it, or with an empty one, Spring Boot's single pool serves everything.
+ * <p>
+ * The primary pool is configured like Boot's ({@code spring.datasource.*}), the replica pool by
+ * {@code fleet.datasource.replica.*}. Neither pool is injectable: the application, Flyway and the health check only
+ * see the routing {@code dataSource}, which sends whatever is not a read-only transaction to the primary, so an
+ * unavailable replica never fails the health check. See {@link ReadWriteRoutingDataSource} for the routing rules.
+ */
+@Configuration
+@ConditionalOnExpression("!'${fleet.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfig {
+
+    private static final long MAXIMUM_CLIENTS = 10_000;
+
+    private final DataSourceProperties primaryProperties;
+    private final String replicaUrl;
+    private final String replicaUsername;
+    private final String replicaPassword;
+    private final Duration maxLag;
+    private final Duration pollInterval;
+    private final TaskScheduler taskScheduler;
+
+    public ReplicaDataSourceConfig(
+            DataSourceProperties primaryProperties,
+            TaskScheduler taskScheduler,
+            @Value("${fleet.datasource.replica.url}") String replicaUrl,
+            @Value("${fleet.datasource.replica.username:${spring.datasource.username}}") String replicaUsername,
+            @Value("${fleet.datasource.replica.password:${spring.datasource.password}}") String replicaPassword,
+            @Value("${fleet.datasource.replica.max-lag:PT5S}") Duration maxLag,
+            @Value("${fleet.datasource.replica.poll-interval:PT1S}") Duration pollInterval
+    ) {
+        this.primaryProperties = primaryProperties;
+        this.replicaUrl = replicaUrl;
+        this.replicaUsername = replicaUsername;
+        this.replicaPassword = replicaPassword;
+        this.maxLag = maxLag;
+        this.pollInterval = pollInterval;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primaryDataSource(), replicaDataSource(), replicaMonitor(), recentWrites()));
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource pool = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    /**
+     * Waits at most a second for a connection by default, since a read that cannot get one falls back to the
+     * primary anyway.
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("fleet.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primaryProperties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        pool.setPoolName("replica");
+        pool.setConnectionTimeout(Duration.ofSeconds(1).toMillis());
+        return pool;
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor() {
+        ReplicaMonitor monitor = new ReplicaMonitor(primaryDataSource(), replicaDataSource(), maxLag);
+        monitor.start(taskScheduler, pollInterval);
+        return monitor;
+    }
+
+    @Bean
+    public RecentWrites recentWrites() {
+        return new RecentWrites(MAXIMUM_CLIENTS, maxLag.plus(pollInterval));
+    }
+
+    /**
+     * Boot publishes {@code hikaricp_*} meters for injectable pools only.
+     */
+    @Bean
+    public MeterBinder replicaDataSourcePoolMetrics() {
+        return registry -> {
+            primaryDataSource().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicaDataSource().setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package com.msitek.fleet.fleetservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -12,6 +15,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 @Configuration
 public class SecurityConfig {
 
@@ -31,8 +36,26 @@ public class SecurityConfig {
                 .build();
     }
 
+    /**
+     * BCrypt verification of the users' passwords, behind a short-lived cache of successful logins.
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(
+            PasswordEncoder passwordEncoder,
+            @Value("${fleet.security.credential-cache.maximum-size:1000}") long maximumSize,
+            @Value("${fleet.security.credential-cache.ttl:PT1M}") Duration ttl
+    ) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsService(users(passwordEncoder));
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, maximumSize, ttl);
+    }
+
     @Bean
-    public UserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    private static UserDetailsService users(PasswordEncoder passwordEncoder) {
         UserDetails admin = User.builder()
                 .username("admin")
                 .password(passwordEncoder.encode("admin"))
@@ -41,9 +64,4 @@ public class SecurityConfig {
 
         return new InMemoryUserDetailsManager(admin);
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
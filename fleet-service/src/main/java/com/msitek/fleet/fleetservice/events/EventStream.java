@@ -0,0 +1,228 @@
+package com.msitek.fleet.fleetservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Server-sent events for clients that would otherwise poll.
+ * <p>
+ * Events are serialized once, by one drain at a time, and appended to the buffer of every subscriber. Events
+ * published while earlier ones were being sent go out together, in one write per subscriber. A subscriber's connection
+ * is written with non-blocking servlet IO, so it takes a thread only while bytes are copied into its socket: idle
+ * streams hold no request threads, and a stalled client cannot hold up the publisher. A subscriber whose buffer of
+ * {@code fleet.events.buffer-size} events is still full when the next event arrives has stopped reading. It is
+ * disconnected and counted as {@code fleet_events_dropped_total}; its client reconnects and reloads.
+ * <p>
+ * A comment line every {@code fleet.events.keep-alive-interval} keeps proxies from closing quiet streams and finds
+ * connections whose client has gone away.
+ */
+@Slf4j
+@Component
+public class EventStream implements MeterBinder, AutoCloseable {
+
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private record Pending(String name, Object data) {}
+
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final int bufferSize;
+    private final int batchSize;
+    private final Duration keepAliveInterval;
+    private final byte[] retry;
+    private final Set<EventSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final List<ScheduledFuture<?>> periodic = new CopyOnWriteArrayList<>();
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public EventStream(
+            ObjectMapper objectMapper,
+            TaskScheduler taskScheduler,
+            @Value("${fleet.events.buffer-size:256}") int bufferSize,
+            @Value("${fleet.events.keep-alive-interval:PT15S}") Duration keepAliveInterval,
+            @Value("${fleet.events.reconnect-delay:PT3S}") Duration reconnectDelay
+    ) {
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        this.bufferSize = bufferSize;
+        // A batch must fit into the buffer of a subscriber that keeps up
+        this.batchSize = Math.min(MAX_BATCH_SIZE, bufferSize);
+        this.keepAliveInterval = keepAliveInterval;
+        this.retry = ("retry: " + reconnectDelay.toMillis() + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostConstruct
+    void start() {
+        publishPeriodically(keepAliveInterval, () -> KEEP_ALIVE);
+    }
+
+    @Override
+    public void close() {
+        periodic.forEach(task -> task.cancel(false));
+        subscribers.forEach(EventSubscriber::close);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fleet.events.subscribers", subscribers, Set::size)
+                .description("Open server-sent event streams")
+                .register(registry);
+        FunctionCounter.builder("fleet.events.dropped", dropped, AtomicLong::get)
+                .description("Event streams disconnected because the client did not keep up")
+                .register(registry);
+    }
+
+    /**
+     * Turns the request into an event stream. The request thread is released as soon as this returns.
+     */
+    public void subscribe(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // nginx would otherwise buffer the stream
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(0);
+        EventSubscriber subscriber = new EventSubscriber(context, bufferSize, subscribers::remove);
+        // Sends the headers right away, and tells EventSource clients how long to wait before reconnecting
+        subscriber.start(retry);
+        subscribers.add(subscriber);
+        if (subscriber.isClosed()) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Sends {@code data} as JSON in an event called {@code name} to every subscriber.
+     */
+    public void publish(String name, Object data) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pending.add(new Pending(name, data));
+        scheduleDrain();
+    }
+
+    /**
+     * {@link #publish} once the current transaction has committed, or right away outside of one.
+     */
+    public void publishAfterCommit(String name, Object data) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(name, data);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(name, data);
+            }
+        });
+    }
+
+    /**
+     * Publishes the event {@code name} every {@code interval}, while anybody is subscribed.
+     */
+    public void publishPeriodically(String name, Duration interval, Supplier<?> data) {
+        publishPeriodically(interval, () -> event(name, data.get()));
+    }
+
+    private void publishPeriodically(Duration interval, Supplier<byte[]> event) {
+        periodic.add(taskScheduler.scheduleAtFixedRate(() -> {
+            if (!subscribers.isEmpty()) {
+                fanOut(List.of(event.get()));
+            }
+        }, Instant.now().plus(interval), interval));
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                taskScheduler.schedule(this::drain, Instant.now());
+            } catch (RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+    }
+
+    /**
+     * Sends the events published since the last drain together, with one write and flush per subscriber rather
+     * than one per event. Only one drain runs at a time, so events reach each subscriber in the order published.
+     */
+    private void drain() {
+        List<byte[]> events = new ArrayList<>();
+        Pending next;
+        while (events.size() < batchSize && (next = pending.poll()) != null) {
+            try {
+                events.add(event(next.name(), next.data()));
+            } catch (RuntimeException e) {
+                log.warn("Publishing event {} failed", next.name(), e);
+            }
+        }
+        if (!events.isEmpty()) {
+            fanOut(events);
+        }
+        draining.set(false);
+        if (!pending.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void fanOut(List<byte[]> events) {
+        for (EventSubscriber subscriber : subscribers) {
+            if (!subscriber.offer(events)) {
+                dropped.incrementAndGet();
+                log.debug("Disconnecting an event stream whose client stopped reading");
+                subscriber.close();
+            }
+        }
+    }
+
+    private byte[] event(String name, Object data) {
+        ByteArrayOutputStream event = new ByteArrayOutputStream(256);
+        event.writeBytes(("event: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        try {
+            // Single-line JSON, so it fits in one data field
+            objectMapper.writeValue(event, data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize event " + name, e);
+        }
+        event.writeBytes("\n\n".getBytes(StandardCharsets.UTF_8));
+        return event.toByteArray();
+    }
+}
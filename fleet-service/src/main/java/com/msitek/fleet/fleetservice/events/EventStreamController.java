@@ -0,0 +1,35 @@
+package com.msitek.fleet.fleetservice.events;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Events", description = "Server-sent events for clients that keep their views up to date")
+public class EventStreamController {
+
+    private final EventStream eventStream;
+
+    @Operation(
+            summary = "Stream fleet events",
+            description = "Server-sent events, sent after the change commits: `vehicle-created` and `vehicle-updated` "
+                    + "carry the vehicle, `vehicle-deleted` its `id`, and `vehicles-changed` the number of vehicles a "
+                    + "batch or import created and updated. Every few seconds, `stats` carries the request statistics "
+                    + "and fleet composition. A client that does not keep up is disconnected; after reconnecting it "
+                    + "should reload, or sync through `/vehicles/changes`."
+    )
+    @ApiResponse(responseCode = "200", description = "Event stream opened")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void events(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        eventStream.subscribe(request, response);
+    }
+}
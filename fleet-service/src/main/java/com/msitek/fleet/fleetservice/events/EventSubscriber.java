@@ -0,0 +1,141 @@
+package com.msitek.fleet.fleetservice.events;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One open event stream, written with non-blocking servlet IO.
+ * <p>
+ * Events are buffered and written for as long as the connection accepts bytes without blocking. When it does not,
+ * the rest stays buffered until the container calls {@link #onWritePossible()}. Writes are serialized by a lock
+ * rather than {@code synchronized}, as they may also run on the container's threads.
+ */
+final class EventSubscriber implements WriteListener, AsyncListener {
+
+    private final AsyncContext context;
+    private final ServletOutputStream out;
+    private final BlockingQueue<byte[]> buffer;
+    private final Consumer<EventSubscriber> onClose;
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // Guarded by lock
+    private boolean unflushed;
+
+    EventSubscriber(AsyncContext context, int bufferSize, Consumer<EventSubscriber> onClose) throws IOException {
+        this.context = context;
+        this.out = context.getResponse().getOutputStream();
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.onClose = onClose;
+    }
+
+    /**
+     * Switches the stream to non-blocking mode, after which the container writes {@code first}.
+     */
+    void start(byte[] first) {
+        buffer.add(first);
+        context.addListener(this);
+        out.setWriteListener(this);
+    }
+
+    /**
+     * Buffers the events and writes as much as the connection accepts, flushing once.
+     *
+     * @return {@code false} if the buffer is full, as the client has not been reading
+     */
+    boolean offer(List<byte[]> events) {
+        for (byte[] event : events) {
+            if (!buffer.offer(event)) {
+                return false;
+            }
+        }
+        write();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Ends the response, once; the client is expected to reconnect.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        onClose.accept(this);
+        lock.lock();
+        try {
+            context.complete();
+        } catch (IllegalStateException e) {
+            // already completed by the container, after an error or a disconnect
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        write();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void write() {
+        lock.lock();
+        try {
+            // isReady() also asks the container to call onWritePossible() once it returns false
+            while (!closed.get() && out.isReady()) {
+                byte[] next = buffer.poll();
+                if (next != null) {
+                    out.write(next);
+                    unflushed = true;
+                } else if (unflushed) {
+                    unflushed = false;
+                    out.flush();
+                } else {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.msitek.fleet.fleetservice.history.api;
+
+import com.msitek.fleet.fleetservice.history.api.dto.FleetCompositionResponse;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusDurationsResponse;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusHistoryResponse;
+import com.msitek.fleet.fleetservice.history.service.VehicleStatusHistory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/vehicles")
+@RequiredArgsConstructor
+@Tag(name = "Status history", description = "Vehicle status transitions and the fleet composition over time")
+public class VehicleStatusHistoryController {
+
+    private static final String TIME = "A date such as 2026-03-01, meaning its start in UTC, or an ISO-8601 timestamp";
+
+    private final VehicleStatusHistory vehicleStatusHistory;
+
+    @Operation(
+            summary = "Get the status history of a vehicle",
+            description = "Returns every status transition of the vehicle, oldest first, from its creation to its "
+                    + "deletion if it was deleted."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "History found"),
+            @ApiResponse(responseCode = "404", description = "Vehicle never existed", content = @Content)
+    })
+    @GetMapping("/{id}/status-history")
+    public VehicleStatusHistoryResponse history(@PathVariable UUID id) {
+        return vehicleStatusHistory.history(id);
+    }
+
+    @Operation(
+            summary = "Get the fleet composition at a point in time",
+            description = "Returns how many vehicles had each status at `at`, or now if omitted."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Composition returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid or future time", content = @Content)
+    })
+    @GetMapping("/status-history/composition")
+    public FleetCompositionResponse composition(
+            @Parameter(description = TIME)
+            @RequestParam(required = false) String at
+    ) {
+        return vehicleStatusHistory.composition(at == null ? Instant.now() : VehicleStatusHistory.parseTime("at", at));
+    }
+
+    @Operation(
+            summary = "Get the time spent in each status",
+            description = "Returns, for each status, the vehicle-days spent in it from `from` until `to` or now, the "
+                    + "stints (vehicles in it at `from` plus transitions into it) and the average days per stint "
+                    + "within the period."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Durations returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid period", content = @Content)
+    })
+    @GetMapping("/status-history/durations")
+    public VehicleStatusDurationsResponse durations(
+            @Parameter(description = TIME, required = true)
+            @RequestParam String from,
+            @Parameter(description = TIME + "; omit for now")
+            @RequestParam(required = false) String to
+    ) {
+        return vehicleStatusHistory.durations(VehicleStatusHistory.parseTime("from", from),
+                to == null ? Instant.now() : VehicleStatusHistory.parseTime("to", to));
+    }
+}
@@ -0,0 +1,15 @@
+package com.msitek.fleet.fleetservice.history.api.dto;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Fleet composition at a point in time. {@code byStatus} lists every status.
+ */
+public record FleetCompositionResponse(
+        Instant at,
+        long total,
+        Map<VehicleStatus, Long> byStatus
+) {}
@@ -0,0 +1,17 @@
+package com.msitek.fleet.fleetservice.history.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+
+/**
+ * One status transition; {@code fromStatus} is left out for the vehicle's creation, {@code toStatus} for its
+ * deletion.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record VehicleStatusChangeResponse(
+        VehicleStatus fromStatus,
+        VehicleStatus toStatus,
+        Instant changedAt
+) {}
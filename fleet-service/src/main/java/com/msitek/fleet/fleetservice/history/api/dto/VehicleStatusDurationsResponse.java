@@ -0,0 +1,29 @@
+package com.msitek.fleet.fleetservice.history.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Time spent in each status within {@code [from, to)}; {@code byStatus} lists every status.
+ */
+public record VehicleStatusDurationsResponse(
+        Instant from,
+        Instant to,
+        Map<VehicleStatus, StatusDuration> byStatus
+) {
+
+    /**
+     * {@code vehicleDays} is the time all vehicles together spent in the status, {@code stints} the number of
+     * vehicles that were in it at {@code from} or entered it later, and {@code averageDays} the time per stint within
+     * the period, left out when there were none.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record StatusDuration(
+            double vehicleDays,
+            long stints,
+            Double averageDays
+    ) {}
+}
@@ -0,0 +1,12 @@
+package com.msitek.fleet.fleetservice.history.api.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Status transitions of a vehicle, oldest first.
+ */
+public record VehicleStatusHistoryResponse(
+        UUID vehicleId,
+        List<VehicleStatusChangeResponse> changes
+) {}
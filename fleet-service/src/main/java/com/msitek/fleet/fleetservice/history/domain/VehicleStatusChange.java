@@ -0,0 +1,15 @@
+package com.msitek.fleet.fleetservice.history.domain;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+
+/**
+ * One transition of a vehicle's status: {@code fromStatus} is {@code null} when the vehicle was created,
+ * {@code toStatus} when it was deleted.
+ */
+public record VehicleStatusChange(
+        VehicleStatus fromStatus,
+        VehicleStatus toStatus,
+        Instant changedAt
+) {}
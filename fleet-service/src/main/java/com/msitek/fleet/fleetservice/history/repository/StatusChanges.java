@@ -0,0 +1,7 @@
+package com.msitek.fleet.fleetservice.history.repository;
+
+/**
+ * Transitions of one status within a time range: the net change in vehicles, the vehicle-seconds they add up to by
+ * the end of the range (negative for vehicles that left), and how many entered the status.
+ */
+public record StatusChanges(long net, double vehicleSeconds, long entries) {}
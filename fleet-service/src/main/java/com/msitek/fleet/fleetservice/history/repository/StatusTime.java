@@ -0,0 +1,6 @@
+package com.msitek.fleet.fleetservice.history.repository;
+
+/**
+ * Vehicle-seconds spent in one status over a run of days, and how many vehicles entered it.
+ */
+public record StatusTime(double vehicleSeconds, long entries) {}
@@ -0,0 +1,181 @@
+package com.msitek.fleet.fleetservice.history.repository;
+
+import com.msitek.fleet.fleetservice.history.domain.VehicleStatusChange;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class VehicleStatusHistoryRepository {
+
+    private static final String FIND_BY_VEHICLE = """
+            SELECT from_status, to_status, changed_at
+            FROM vehicle_status_changes
+            WHERE vehicle_id = ?
+            ORDER BY changed_at
+            """;
+
+    /**
+     * Each transition leaves one status and enters another; a range condition on {@code changed_at} reads only the
+     * blocks the BRIN index points to.
+     */
+    private static final String CHANGES_BETWEEN = """
+            SELECT t.status,
+                   sum(t.delta) AS net,
+                   sum(t.delta * extract(epoch FROM ?::timestamptz - c.changed_at)::float8) AS vehicle_seconds,
+                   count(*) FILTER (WHERE t.delta = 1) AS entries
+            FROM vehicle_status_changes c
+            CROSS JOIN LATERAL (VALUES (c.to_status, 1), (c.from_status, -1)) AS t (status, delta)
+            WHERE c.changed_at >= ?::timestamptz AND c.changed_at < ?::timestamptz AND t.status IS NOT NULL
+            GROUP BY t.status
+            """;
+
+    /**
+     * Derives the rows of a run of days from the row of the day before it and the transitions within it, replacing
+     * those already stored.
+     */
+    private static final String UPSERT_DAYS = """
+            WITH days AS (
+                SELECT d::date AS day FROM generate_series(?::date, ?::date, interval '1 day') AS d
+            ), statuses AS (
+                SELECT unnest(?::text[]) AS status
+            ), changes AS (
+                SELECT (c.changed_at AT TIME ZONE 'UTC')::date AS day, t.status, t.delta,
+                       extract(epoch FROM ((c.changed_at AT TIME ZONE 'UTC')::date + 1) AT TIME ZONE 'UTC'
+                           - c.changed_at)::float8 AS remaining_seconds
+                FROM vehicle_status_changes c
+                CROSS JOIN LATERAL (VALUES (c.to_status, 1), (c.from_status, -1)) AS t (status, delta)
+                WHERE c.changed_at >= ?::timestamptz AND c.changed_at < ?::timestamptz AND t.status IS NOT NULL
+            ), daily AS (
+                SELECT d.day, s.status,
+                       coalesce(sum(c.delta), 0) AS net,
+                       coalesce(sum(c.delta * c.remaining_seconds), 0) AS remaining_seconds,
+                       count(c.delta) FILTER (WHERE c.delta = 1) AS entries
+                FROM days d
+                CROSS JOIN statuses s
+                LEFT JOIN changes c ON c.day = d.day AND c.status = s.status
+                GROUP BY d.day, s.status
+            ), running AS (
+                SELECT daily.day, daily.status, daily.net, daily.remaining_seconds, daily.entries,
+                       coalesce(previous.vehicles, 0)
+                           + sum(daily.net) OVER (PARTITION BY daily.status ORDER BY daily.day) AS vehicles
+                FROM daily
+                LEFT JOIN vehicle_status_days previous
+                    ON previous.day = ?::date - 1 AND previous.status = daily.status
+            )
+            INSERT INTO vehicle_status_days (day, status, vehicles, vehicle_seconds, entries)
+            SELECT day, status, vehicles, (vehicles - net) * 86400.0 + remaining_seconds, entries
+            FROM running
+            ON CONFLICT (day, status) DO UPDATE
+                SET vehicles = EXCLUDED.vehicles, vehicle_seconds = EXCLUDED.vehicle_seconds, entries = EXCLUDED.entries
+            """;
+
+    private static final String TIME_IN_DAYS = """
+            SELECT status, sum(vehicle_seconds) AS vehicle_seconds, sum(entries) AS entries
+            FROM vehicle_status_days
+            WHERE day >= ?::date AND day < ?::date
+            GROUP BY status
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<VehicleStatusChange> findByVehicleId(UUID vehicleId) {
+        return jdbcTemplate.query(FIND_BY_VEHICLE, (rs, i) -> new VehicleStatusChange(
+                status(rs.getString("from_status")),
+                status(rs.getString("to_status")),
+                rs.getObject("changed_at", OffsetDateTime.class).toInstant()
+        ), vehicleId);
+    }
+
+    /**
+     * Transitions in {@code [from, to)}, by status; {@code from} may be {@code null} for the beginning of the log.
+     */
+    public Map<VehicleStatus, StatusChanges> changesBetween(Instant from, Instant to) {
+        Map<VehicleStatus, StatusChanges> changes = new EnumMap<>(VehicleStatus.class);
+        jdbcTemplate.query(CHANGES_BETWEEN, rs -> {
+            changes.put(VehicleStatus.valueOf(rs.getString("status")), new StatusChanges(
+                    rs.getLong("net"), rs.getDouble("vehicle_seconds"), rs.getLong("entries")));
+        }, to.toString(), from == null ? "-infinity" : from.toString(), to.toString());
+        return changes;
+    }
+
+    public Instant firstChangedAt() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT min(changed_at) FROM vehicle_status_changes", Timestamp.class);
+        return first == null ? null : first.toInstant();
+    }
+
+    public LocalDate firstDay() {
+        return jdbcTemplate.queryForObject("SELECT min(day) FROM vehicle_status_days", LocalDate.class);
+    }
+
+    public LocalDate lastDay() {
+        return jdbcTemplate.queryForObject("SELECT max(day) FROM vehicle_status_days", LocalDate.class);
+    }
+
+    public LocalDate lastDayBefore(LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT max(day) FROM vehicle_status_days WHERE day < ?",
+                LocalDate.class, day);
+    }
+
+    /**
+     * Stores the rows of the days {@code first} to {@code last}, which must follow a stored day, or start the log.
+     * Rows of those days already stored are recomputed.
+     *
+     * @return the number of rows stored
+     */
+    public int upsertDays(LocalDate first, LocalDate last) {
+        String[] statuses = Arrays.stream(VehicleStatus.values()).map(Enum::name).toArray(String[]::new);
+        return jdbcTemplate.update(UPSERT_DAYS, ps -> {
+            ps.setString(1, first.toString());
+            ps.setString(2, last.toString());
+            ps.setArray(3, ps.getConnection().createArrayOf("text", statuses));
+            ps.setString(4, startOf(first).toString());
+            ps.setString(5, startOf(last.plusDays(1)).toString());
+            ps.setString(6, first.toString());
+        });
+    }
+
+    /**
+     * Vehicles in each status at the end of a stored day.
+     */
+    public Map<VehicleStatus, Long> vehiclesAtEndOf(LocalDate day) {
+        Map<VehicleStatus, Long> vehicles = new EnumMap<>(VehicleStatus.class);
+        jdbcTemplate.query("SELECT status, vehicles FROM vehicle_status_days WHERE day = ?", rs -> {
+            vehicles.put(VehicleStatus.valueOf(rs.getString("status")), rs.getLong("vehicles"));
+        }, day);
+        return vehicles;
+    }
+
+    /**
+     * Time spent in each status over the stored days in {@code [first, end)}.
+     */
+    public Map<VehicleStatus, StatusTime> timeInDays(LocalDate first, LocalDate end) {
+        Map<VehicleStatus, StatusTime> time = new EnumMap<>(VehicleStatus.class);
+        jdbcTemplate.query(TIME_IN_DAYS, rs -> {
+            time.put(VehicleStatus.valueOf(rs.getString("status")),
+                    new StatusTime(rs.getDouble("vehicle_seconds"), rs.getLong("entries")));
+        }, first.toString(), end.toString());
+        return time;
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static VehicleStatus status(String value) {
+        return value == null ? null : VehicleStatus.valueOf(value);
+    }
+}
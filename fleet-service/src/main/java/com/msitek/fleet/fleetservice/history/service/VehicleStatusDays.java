@@ -0,0 +1,64 @@
+package com.msitek.fleet.fleetservice.history.service;
+
+import com.msitek.fleet.fleetservice.history.repository.VehicleStatusHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@code vehicle_status_days} up to date with the UTC days that closed, recomputing a trailing window of them.
+ */
+@Slf4j
+@Component
+public class VehicleStatusDays {
+
+    private final VehicleStatusHistoryRepository historyRepository;
+    private final Duration dayCloseDelay;
+    private final Period recomputeWindow;
+
+    public VehicleStatusDays(
+            VehicleStatusHistoryRepository historyRepository,
+            @Value("${fleet.status-history.day-close-delay:PT10M}") Duration dayCloseDelay,
+            @Value("${fleet.status-history.recompute-window:P2D}") Period recomputeWindow
+    ) {
+        this.historyRepository = historyRepository;
+        this.dayCloseDelay = dayCloseDelay;
+        this.recomputeWindow = recomputeWindow;
+    }
+
+    /**
+     * Adds the rows of the closed days not stored yet and recomputes those of the window before them.
+     */
+    @Scheduled(fixedDelayString = "${fleet.status-history.maintenance-interval:PT1H}")
+    public void maintain() {
+        LocalDate lastClosed = LocalDate.ofInstant(Instant.now().minus(dayCloseDelay), ZoneOffset.UTC).minusDays(1);
+        LocalDate lastStored = historyRepository.lastDay();
+        LocalDate first;
+        if (lastStored != null) {
+            LocalDate windowStart = lastStored.plusDays(1).minus(recomputeWindow);
+            LocalDate firstStored = historyRepository.firstDay();
+            first = windowStart.isBefore(firstStored) ? firstStored : windowStart;
+        } else {
+            Instant firstChange = historyRepository.firstChangedAt();
+            if (firstChange == null) {
+                return;
+            }
+            first = LocalDate.ofInstant(firstChange, ZoneOffset.UTC);
+        }
+        if (first.isAfter(lastClosed)) {
+            return;
+        }
+        long started = System.nanoTime();
+        historyRepository.upsertDays(first, lastClosed);
+        log.debug("Summed up vehicle statuses of {} to {} in {} ms", first, lastClosed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+}
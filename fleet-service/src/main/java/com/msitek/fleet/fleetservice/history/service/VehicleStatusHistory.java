@@ -0,0 +1,171 @@
+package com.msitek.fleet.fleetservice.history.service;
+
+import com.msitek.fleet.fleetservice.history.api.dto.FleetCompositionResponse;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusChangeResponse;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusDurationsResponse;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusDurationsResponse.StatusDuration;
+import com.msitek.fleet.fleetservice.history.api.dto.VehicleStatusHistoryResponse;
+import com.msitek.fleet.fleetservice.history.domain.VehicleStatusChange;
+import com.msitek.fleet.fleetservice.history.repository.StatusChanges;
+import com.msitek.fleet.fleetservice.history.repository.VehicleStatusHistoryRepository;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehicleNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Status history answered from the rows of whole days in {@code vehicle_status_days} plus the log of the partial days.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleStatusHistory {
+
+    private static final double SECONDS_PER_DAY = 86400;
+
+    private final VehicleStatusHistoryRepository historyRepository;
+
+    /**
+     * Status transitions of the vehicle, including those of a deleted vehicle.
+     *
+     * @throws VehicleNotFoundException if the vehicle never existed
+     */
+    @Transactional(readOnly = true)
+    public VehicleStatusHistoryResponse history(UUID vehicleId) {
+        List<VehicleStatusChange> changes = historyRepository.findByVehicleId(vehicleId);
+        if (changes.isEmpty()) {
+            throw new VehicleNotFoundException("Vehicle not found: " + vehicleId);
+        }
+        return new VehicleStatusHistoryResponse(vehicleId, changes.stream()
+                .map(change -> new VehicleStatusChangeResponse(change.fromStatus(), change.toStatus(),
+                        change.changedAt()))
+                .toList());
+    }
+
+    /**
+     * Vehicles in each status at {@code at}, which must not lie in the future.
+     */
+    @Transactional(readOnly = true)
+    public FleetCompositionResponse composition(Instant at) {
+        if (at.isAfter(Instant.now())) {
+            throw new IllegalArgumentException("at must not lie in the future");
+        }
+        Map<VehicleStatus, Long> byStatus = countsAt(at);
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new FleetCompositionResponse(at, total, byStatus);
+    }
+
+    /**
+     * Time spent in each status within {@code [from, to)}; a {@code to} in the future ends the period now.
+     */
+    @Transactional(readOnly = true)
+    public VehicleStatusDurationsResponse durations(Instant from, Instant to) {
+        Instant now = Instant.now();
+        Instant end = to.isAfter(now) ? now : to;
+        if (!from.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to and in the past");
+        }
+
+        Map<VehicleStatus, Long> atStart = countsAt(from);
+        Map<VehicleStatus, Double> seconds = new EnumMap<>(VehicleStatus.class);
+        Map<VehicleStatus, Long> entries = new EnumMap<>(VehicleStatus.class);
+
+        // whole days come from their rows, as far as they are stored, the rest from the log
+        LocalDate firstWhole = LocalDate.ofInstant(from, ZoneOffset.UTC);
+        if (startOf(firstWhole).isBefore(from)) {
+            firstWhole = firstWhole.plusDays(1);
+        }
+        LocalDate endWhole = LocalDate.ofInstant(end, ZoneOffset.UTC);
+        LocalDate lastStored = historyRepository.lastDay();
+        if (lastStored == null || lastStored.isBefore(endWhole)) {
+            endWhole = lastStored == null ? firstWhole : lastStored.plusDays(1);
+        }
+        if (firstWhole.isBefore(endWhole)) {
+            addPartial(from, startOf(firstWhole), atStart, seconds, entries);
+            historyRepository.timeInDays(firstWhole, endWhole).forEach((status, time) -> {
+                seconds.merge(status, time.vehicleSeconds(), Double::sum);
+                entries.merge(status, time.entries(), Long::sum);
+            });
+            Instant afterWhole = startOf(endWhole);
+            addPartial(afterWhole, end, afterWhole.isBefore(end) ? countsAt(afterWhole) : Map.of(), seconds, entries);
+        } else {
+            addPartial(from, end, atStart, seconds, entries);
+        }
+
+        Map<VehicleStatus, StatusDuration> byStatus = new EnumMap<>(VehicleStatus.class);
+        for (VehicleStatus status : VehicleStatus.values()) {
+            double vehicleDays = seconds.getOrDefault(status, 0.0) / SECONDS_PER_DAY;
+            long stints = atStart.get(status) + entries.getOrDefault(status, 0L);
+            byStatus.put(status, new StatusDuration(round(vehicleDays), stints,
+                    stints == 0 ? null : round(vehicleDays / stints)));
+        }
+        return new VehicleStatusDurationsResponse(from, end, byStatus);
+    }
+
+    /**
+     * Reads a query parameter given either as a date, meaning its start in UTC, or as an ISO-8601 timestamp.
+     */
+    public static Instant parseTime(String name, String value) {
+        try {
+            return value.indexOf('T') < 0
+                    ? startOf(LocalDate.parse(value))
+                    : OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    name + " must be a date such as 2026-03-01 or a timestamp such as 2026-03-01T12:00:00Z: " + value);
+        }
+    }
+
+    /**
+     * Vehicles in each status at {@code at}: the end of the last stored day before it plus the transitions since.
+     */
+    private Map<VehicleStatus, Long> countsAt(Instant at) {
+        Map<VehicleStatus, Long> counts = new EnumMap<>(VehicleStatus.class);
+        for (VehicleStatus status : VehicleStatus.values()) {
+            counts.put(status, 0L);
+        }
+        LocalDate base = historyRepository.lastDayBefore(LocalDate.ofInstant(at, ZoneOffset.UTC));
+        if (base != null) {
+            counts.putAll(historyRepository.vehiclesAtEndOf(base));
+        }
+        historyRepository.changesBetween(base == null ? null : startOf(base.plusDays(1)), at)
+                .forEach((status, changes) -> counts.merge(status, changes.net(), Long::sum));
+        return counts;
+    }
+
+    /**
+     * Adds the time spent in each status within {@code [from, to)}, given the vehicles in it at {@code from}.
+     */
+    private void addPartial(Instant from, Instant to, Map<VehicleStatus, Long> atFrom,
+                            Map<VehicleStatus, Double> seconds, Map<VehicleStatus, Long> entries) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        double length = Duration.between(from, to).toNanos() / 1e9;
+        atFrom.forEach((status, vehicles) -> seconds.merge(status, vehicles * length, Double::sum));
+        Map<VehicleStatus, StatusChanges> changes = historyRepository.changesBetween(from, to);
+        changes.forEach((status, change) -> {
+            seconds.merge(status, change.vehicleSeconds(), Double::sum);
+            entries.merge(status, change.entries(), Long::sum);
+        });
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static double round(double days) {
+        return Math.round(days * 1000) / 1000.0;
+    }
+}
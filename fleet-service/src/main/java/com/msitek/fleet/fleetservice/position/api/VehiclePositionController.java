@@ -0,0 +1,81 @@
+package com.msitek.fleet.fleetservice.position.api;
+
+import com.msitek.fleet.fleetservice.position.api.dto.VehiclePositionsResponse;
+import com.msitek.fleet.fleetservice.position.service.VehiclePositions;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/positions")
+@RequiredArgsConstructor
+@Tag(name = "Positions", description = "Spatial queries over the last known vehicle positions")
+public class VehiclePositionController {
+
+    private final VehiclePositions vehiclePositions;
+
+    @Operation(
+            summary = "Find the nearest vehicles",
+            description = "Returns the vehicles nearest to the point, closest first, with their distance. Positions "
+                    + "are the latest reported by telemetry and answered from memory; `truncated` is set when more "
+                    + "vehicles matched than were returned."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Vehicles found"),
+            @ApiResponse(responseCode = "400", description = "Invalid point, radius, status or limit", content = @Content)
+    })
+    @GetMapping("/nearest")
+    public VehiclePositionsResponse nearest(
+            @Parameter(description = "Latitude of the point", required = true)
+            @RequestParam double latitude,
+            @Parameter(description = "Longitude of the point", required = true)
+            @RequestParam double longitude,
+            @Parameter(description = "Maximum distance in kilometres; omit for any distance")
+            @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Statuses to include, repeated or comma-separated; omit for all")
+            @RequestParam(required = false) Set<VehicleStatus> status,
+            @Parameter(description = "Maximum number of vehicles, at most " + VehiclePositions.MAX_NEAREST)
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return vehiclePositions.nearest(latitude, longitude, radiusKm, status == null ? Set.of() : status, limit);
+    }
+
+    @Operation(
+            summary = "Find the vehicles in a box",
+            description = "Returns the vehicles whose last known position lies within the box, in no particular "
+                    + "order. A box whose `minLongitude` is greater than its `maxLongitude` crosses the antimeridian."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Vehicles found"),
+            @ApiResponse(responseCode = "400", description = "Invalid box, status or limit", content = @Content)
+    })
+    @GetMapping
+    public VehiclePositionsResponse within(
+            @Parameter(description = "Southern edge", required = true)
+            @RequestParam double minLatitude,
+            @Parameter(description = "Western edge", required = true)
+            @RequestParam double minLongitude,
+            @Parameter(description = "Northern edge", required = true)
+            @RequestParam double maxLatitude,
+            @Parameter(description = "Eastern edge", required = true)
+            @RequestParam double maxLongitude,
+            @Parameter(description = "Statuses to include, repeated or comma-separated; omit for all")
+            @RequestParam(required = false) Set<VehicleStatus> status,
+            @Parameter(description = "Maximum number of vehicles, at most " + VehiclePositions.MAX_WITHIN)
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return vehiclePositions.within(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                status == null ? Set.of() : status, limit);
+    }
+}
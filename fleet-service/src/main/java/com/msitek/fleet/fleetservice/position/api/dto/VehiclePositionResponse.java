@@ -0,0 +1,21 @@
+package com.msitek.fleet.fleetservice.position.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Last known position of a vehicle; {@code distanceKm} only in answers to nearest-vehicle queries.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record VehiclePositionResponse(
+        UUID vehicleId,
+        VehicleStatus status,
+        double latitude,
+        double longitude,
+        Instant recordedAt,
+        Double distanceKm
+) {
+}
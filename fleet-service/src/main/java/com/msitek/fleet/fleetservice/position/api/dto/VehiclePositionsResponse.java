@@ -0,0 +1,12 @@
+package com.msitek.fleet.fleetservice.position.api.dto;
+
+import java.util.List;
+
+/**
+ * Positions matching a query; {@code truncated} if more vehicles matched, or may have, than the limit allowed.
+ */
+public record VehiclePositionsResponse(
+        List<VehiclePositionResponse> positions,
+        boolean truncated
+) {
+}
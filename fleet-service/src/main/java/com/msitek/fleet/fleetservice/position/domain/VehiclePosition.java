@@ -0,0 +1,22 @@
+package com.msitek.fleet.fleetservice.position.domain;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Last known position of a vehicle, with its current status so that position queries can filter by it.
+ */
+public record VehiclePosition(
+        UUID vehicleId,
+        double latitude,
+        double longitude,
+        Instant recordedAt,
+        VehicleStatus status
+) {
+
+    public VehiclePosition withStatus(VehicleStatus status) {
+        return new VehiclePosition(vehicleId, latitude, longitude, recordedAt, status);
+    }
+}
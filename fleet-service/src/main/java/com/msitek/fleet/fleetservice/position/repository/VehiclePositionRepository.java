@@ -0,0 +1,101 @@
+package com.msitek.fleet.fleetservice.position.repository;
+
+import com.msitek.fleet.fleetservice.position.domain.VehiclePosition;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class VehiclePositionRepository {
+
+    /**
+     * Keeps the newer of the stored and the given position. Positions of vehicles deleted in the meantime are skipped.
+     */
+    private static final String UPSERT_NEWER = """
+            INSERT INTO vehicle_positions AS p (vehicle_id, latitude, longitude, recorded_at)
+            SELECT r.vehicle_id, r.latitude, r.longitude, r.recorded_at
+            FROM unnest(?::uuid[], ?::float8[], ?::float8[], ?::timestamptz[]) AS r (vehicle_id, latitude, longitude, recorded_at)
+            JOIN vehicles v ON v.id = r.vehicle_id
+            ON CONFLICT (vehicle_id) DO UPDATE
+                SET latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, recorded_at = EXCLUDED.recorded_at
+                WHERE p.recorded_at < EXCLUDED.recorded_at
+            """;
+
+    private static final String FIND_STATUSES = """
+            SELECT id, status FROM vehicles WHERE id = ANY (?::uuid[])
+            """;
+
+    private static final String FIND_ALL = """
+            SELECT p.vehicle_id, p.latitude, p.longitude, p.recorded_at, v.status
+            FROM vehicle_positions p
+            JOIN vehicles v ON v.id = p.vehicle_id
+            """;
+
+    private static final RowMapper<VehiclePosition> POSITION = (rs, i) -> new VehiclePosition(
+            rs.getObject("vehicle_id", UUID.class),
+            rs.getDouble("latitude"),
+            rs.getDouble("longitude"),
+            rs.getObject("recorded_at", OffsetDateTime.class).toInstant(),
+            VehicleStatus.valueOf(rs.getString("status"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores each position unless a later one is stored already.
+     *
+     * @param positions at most one per vehicle; their statuses are ignored
+     * @return the number of positions stored
+     */
+    public int upsertNewer(List<VehiclePosition> positions) {
+        UUID[] ids = new UUID[positions.size()];
+        Double[] latitudes = new Double[positions.size()];
+        Double[] longitudes = new Double[positions.size()];
+        String[] recordedAt = new String[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            VehiclePosition position = positions.get(i);
+            ids[i] = position.vehicleId();
+            latitudes[i] = position.latitude();
+            longitudes[i] = position.longitude();
+            recordedAt[i] = position.recordedAt().toString();
+        }
+        return jdbcTemplate.update(UPSERT_NEWER, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("uuid", ids));
+            ps.setArray(2, connection.createArrayOf("float8", latitudes));
+            ps.setArray(3, connection.createArrayOf("float8", longitudes));
+            ps.setArray(4, connection.createArrayOf("text", recordedAt));
+        });
+    }
+
+    /**
+     * The statuses of those of the vehicles that exist.
+     */
+    public Map<UUID, VehicleStatus> findStatuses(Collection<UUID> vehicleIds) {
+        Map<UUID, VehicleStatus> statuses = new HashMap<>();
+        jdbcTemplate.query(FIND_STATUSES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", vehicleIds.toArray())),
+                rs -> {
+                    statuses.put(rs.getObject("id", UUID.class), VehicleStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    public void forEach(Consumer<VehiclePosition> action) {
+        jdbcTemplate.query(FIND_ALL, rs -> {
+            action.accept(POSITION.mapRow(rs, 0));
+        });
+    }
+}
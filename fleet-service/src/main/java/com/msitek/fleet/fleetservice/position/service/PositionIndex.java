@@ -0,0 +1,349 @@
+package com.msitek.fleet.fleetservice.position.service;
+
+import com.msitek.fleet.fleetservice.position.domain.VehiclePosition;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known vehicle positions in a grid of {@code cellSize} degree cells, searched only around the area asked about.
+ */
+public final class PositionIndex {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    /**
+     * Positions found by a query; {@code truncated} if more positions matched, or may have, than were asked for.
+     */
+    public record Hits(List<VehiclePosition> positions, boolean truncated) {}
+
+    private record Candidate(VehiclePosition position, double distanceKm) {}
+
+    private final double cellSize;
+    private final int rows;
+    private final int columns;
+    private final Map<UUID, VehiclePosition> positions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Map<UUID, VehiclePosition>> cells = new ConcurrentHashMap<>();
+
+    /**
+     * @param cellSize cell edge in degrees of latitude and longitude, dividing 180 evenly so that every cell is whole;
+     *                 about the radius most queries ask for works best
+     */
+    public PositionIndex(double cellSize) {
+        double rowsExact = 180 / cellSize;
+        if (!(cellSize > 0 && cellSize <= 90) || Math.abs(rowsExact - Math.rint(rowsExact)) > 1e-6) {
+            throw new IllegalArgumentException("cellSize must divide 180 degrees evenly: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.rows = (int) Math.rint(rowsExact);
+        this.columns = 2 * rows;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public int occupiedCells() {
+        return cells.size();
+    }
+
+    public VehiclePosition get(UUID vehicleId) {
+        return positions.get(vehicleId);
+    }
+
+    public Set<UUID> vehicleIds() {
+        return Collections.unmodifiableSet(positions.keySet());
+    }
+
+    /**
+     * Moves the vehicle to {@code position}, unless the index already has a position recorded after it.
+     */
+    public void update(VehiclePosition position) {
+        positions.compute(position.vehicleId(), (id, previous) -> {
+            if (previous != null && previous.recordedAt().isAfter(position.recordedAt())) {
+                return previous;
+            }
+            long cell = cellOf(position.latitude(), position.longitude());
+            addToCell(cell, position);
+            if (previous != null && cellOf(previous.latitude(), previous.longitude()) != cell) {
+                removeFromCell(cellOf(previous.latitude(), previous.longitude()), id);
+            }
+            return position;
+        });
+    }
+
+    /**
+     * Changes the status of an indexed vehicle; vehicles without a position are ignored.
+     */
+    public void updateStatus(UUID vehicleId, VehicleStatus status) {
+        positions.computeIfPresent(vehicleId, (id, previous) -> {
+            if (previous.status() == status) {
+                return previous;
+            }
+            VehiclePosition changed = previous.withStatus(status);
+            addToCell(cellOf(changed.latitude(), changed.longitude()), changed);
+            return changed;
+        });
+    }
+
+    public void remove(UUID vehicleId) {
+        positions.computeIfPresent(vehicleId, (id, previous) -> {
+            removeFromCell(cellOf(previous.latitude(), previous.longitude()), id);
+            return null;
+        });
+    }
+
+    /**
+     * Up to {@code limit} vehicles with one of {@code statuses} (any, if empty) inside the box, in no particular
+     * order. A box with {@code minLongitude > maxLongitude} crosses the antimeridian.
+     */
+    public Hits within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                       Set<VehicleStatus> statuses, int limit) {
+        int firstRow = row(minLatitude);
+        int lastRow = row(maxLatitude);
+        int firstColumn = column(minLongitude);
+        int westEdge = (int) Math.floor((minLongitude + 180) / cellSize);
+        int eastEdge = (int) Math.floor((maxLongitude + 180) / cellSize);
+        // a box crossing the antimeridian wraps around to column 0
+        int spannedColumns = Math.min(columns,
+                (minLongitude <= maxLongitude ? eastEdge : eastEdge + columns) - westEdge + 1);
+
+        List<VehiclePosition> found = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        long spannedCells = (long) (lastRow - firstRow + 1) * spannedColumns;
+        Iterable<Map<UUID, VehiclePosition>> candidates = spannedCells > cells.size()
+                ? cells.values()
+                : () -> new CellIterator(firstRow, lastRow, firstColumn, spannedColumns);
+        for (Map<UUID, VehiclePosition> cell : candidates) {
+            for (VehiclePosition position : cell.values()) {
+                if (inBox(position, minLatitude, minLongitude, maxLatitude, maxLongitude)
+                        && matches(position, statuses) && seen.add(position.vehicleId())) {
+                    if (found.size() == limit) {
+                        return new Hits(found, true);
+                    }
+                    found.add(position);
+                }
+            }
+        }
+        return new Hits(found, false);
+    }
+
+    /**
+     * Up to {@code limit} vehicles with one of {@code statuses} (any, if empty) within {@code maxDistanceKm} of the
+     * point, nearest first.
+     */
+    public Hits nearest(double latitude, double longitude, double maxDistanceKm, Set<VehicleStatus> statuses, int limit) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        Set<UUID> seen = new HashSet<>();
+        boolean[] truncated = new boolean[1];
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        long scannedCells = 0;
+
+        double edgeDegrees = distanceToCellEdgeDegrees(latitude, longitude);
+        for (int ring = 0; ring <= Math.max(rows, columns / 2); ring++) {
+            double bound = ringDistanceBoundKm(ring, latitude, edgeDegrees);
+            if (bound > maxDistanceKm) {
+                break;
+            }
+            if (best.size() == limit && bound > best.peek().distanceKm()) {
+                // vehicles further out may still be within maxDistanceKm
+                truncated[0] = true;
+                break;
+            }
+            long ringCells = ring == 0 ? 1 : 8L * ring;
+            if (scannedCells + ringCells > cells.size()) {
+                // cheaper to look at every occupied cell than at the rest of the rings
+                for (Map<UUID, VehiclePosition> cell : cells.values()) {
+                    offer(cell, latitude, longitude, maxDistanceKm, statuses, limit, best, seen, truncated);
+                }
+                break;
+            }
+            for (int dr = -ring; dr <= ring; dr++) {
+                int r = centerRow + dr;
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                int step = Math.abs(dr) == ring ? 1 : 2 * ring;
+                for (int dc = -ring; dc <= ring; dc += step) {
+                    Map<UUID, VehiclePosition> cell = cells.get(key(r, Math.floorMod(centerColumn + dc, columns)));
+                    if (cell != null) {
+                        offer(cell, latitude, longitude, maxDistanceKm, statuses, limit, best, seen, truncated);
+                    }
+                }
+            }
+            scannedCells += ringCells;
+        }
+
+        List<VehiclePosition> nearest = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            nearest.add(best.poll().position());
+        }
+        return new Hits(nearest.reversed(), truncated[0]);
+    }
+
+    /**
+     * Great-circle distance in km.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void offer(Map<UUID, VehiclePosition> cell, double latitude, double longitude, double maxDistanceKm,
+                              Set<VehicleStatus> statuses, int limit, PriorityQueue<Candidate> best, Set<UUID> seen,
+                              boolean[] truncated) {
+        for (VehiclePosition position : cell.values()) {
+            if (!matches(position, statuses)) {
+                continue;
+            }
+            // the difference in latitude alone is a distance no greater than the real one, and far cheaper
+            if (best.size() == limit && KM_PER_DEGREE * Math.abs(position.latitude() - latitude) > best.peek().distanceKm()) {
+                truncated[0] = true;
+                continue;
+            }
+            double distance = distanceKm(latitude, longitude, position.latitude(), position.longitude());
+            if (distance > maxDistanceKm || !seen.add(position.vehicleId())) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Candidate(position, distance));
+            } else {
+                truncated[0] = true;
+                if (distance < best.peek().distanceKm()) {
+                    best.poll();
+                    best.add(new Candidate(position, distance));
+                }
+            }
+        }
+    }
+
+    /**
+     * How close a vehicle in ring {@code ring} around the point's cell can be. Such a cell is {@code ring} rows or
+     * {@code ring} columns away, so it is at least {@code ring - 1} cells plus the distance to the nearest edge of the
+     * point's own cell away in latitude, or in longitude. Along a meridian that is an exact distance; across meridians
+     * it is bounded by the distance to the meridian in between.
+     */
+    private double ringDistanceBoundKm(int ring, double latitude, double edgeDegrees) {
+        if (ring == 0) {
+            return 0;
+        }
+        double degrees = (ring - 1) * cellSize + edgeDegrees;
+        double alongMeridian = EARTH_RADIUS_KM * Math.toRadians(degrees);
+        double acrossMeridians = EARTH_RADIUS_KM
+                * Math.asin(Math.sin(Math.toRadians(Math.min(degrees, 90))) * Math.cos(Math.toRadians(latitude)));
+        return Math.min(alongMeridian, acrossMeridians);
+    }
+
+    private double distanceToCellEdgeDegrees(double latitude, double longitude) {
+        double inRow = (latitude + 90) - row(latitude) * cellSize;
+        double inColumn = (longitude + 180) - Math.floor((longitude + 180) / cellSize) * cellSize;
+        // rounding can put a point on an edge a hair outside its cell
+        return Math.max(0, Math.min(Math.min(inRow, cellSize - inRow), Math.min(inColumn, cellSize - inColumn)));
+    }
+
+    private static boolean matches(VehiclePosition position, Set<VehicleStatus> statuses) {
+        return statuses.isEmpty() || statuses.contains(position.status());
+    }
+
+    private static boolean inBox(VehiclePosition position, double minLatitude, double minLongitude,
+                                 double maxLatitude, double maxLongitude) {
+        if (position.latitude() < minLatitude || position.latitude() > maxLatitude) {
+            return false;
+        }
+        return minLongitude <= maxLongitude
+                ? position.longitude() >= minLongitude && position.longitude() <= maxLongitude
+                : position.longitude() >= minLongitude || position.longitude() <= maxLongitude;
+    }
+
+    private void addToCell(long cell, VehiclePosition position) {
+        cells.compute(cell, (key, vehicles) -> {
+            Map<UUID, VehiclePosition> target = vehicles != null ? vehicles : new ConcurrentHashMap<>();
+            target.put(position.vehicleId(), position);
+            return target;
+        });
+    }
+
+    private void removeFromCell(long cell, UUID vehicleId) {
+        cells.computeIfPresent(cell, (key, vehicles) -> {
+            vehicles.remove(vehicleId);
+            return vehicles.isEmpty() ? null : vehicles;
+        });
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key(row(latitude), column(longitude));
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellSize)));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellSize), columns);
+    }
+
+    private long key(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    /**
+     * The existing cells of a block of rows and (wrapping) columns.
+     */
+    private final class CellIterator implements Iterator<Map<UUID, VehiclePosition>> {
+
+        private final int lastRow;
+        private final int firstColumn;
+        private final int spannedColumns;
+        private int row;
+        private int offset;
+        private Map<UUID, VehiclePosition> next;
+
+        CellIterator(int firstRow, int lastRow, int firstColumn, int spannedColumns) {
+            this.lastRow = lastRow;
+            this.firstColumn = firstColumn;
+            this.spannedColumns = spannedColumns;
+            this.row = firstRow;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map<UUID, VehiclePosition> next() {
+            Map<UUID, VehiclePosition> current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && row <= lastRow) {
+                next = cells.get(key(row, (firstColumn + offset) % columns));
+                if (++offset == spannedColumns) {
+                    offset = 0;
+                    row++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.msitek.fleet.fleetservice.position.service;
+
+import com.msitek.fleet.fleetservice.position.api.dto.VehiclePositionResponse;
+import com.msitek.fleet.fleetservice.position.api.dto.VehiclePositionsResponse;
+import com.msitek.fleet.fleetservice.position.domain.VehiclePosition;
+import com.msitek.fleet.fleetservice.position.repository.VehiclePositionRepository;
+import com.msitek.fleet.fleetservice.telemetry.domain.TelemetryReading;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last known vehicle positions, served from a {@link PositionIndex} and saved to {@code vehicle_positions}.
+ */
+@Slf4j
+@Component
+public class VehiclePositions implements MeterBinder, AutoCloseable {
+
+    public static final int MAX_NEAREST = 1000;
+    public static final int MAX_WITHIN = 10000;
+
+    private final VehiclePositionRepository positionRepository;
+    private final PositionIndex index;
+    private final Set<UUID> unflushed = ConcurrentHashMap.newKeySet();
+    private final TaskScheduler taskScheduler;
+
+    public VehiclePositions(
+            VehiclePositionRepository positionRepository,
+            TaskScheduler taskScheduler,
+            @Value("${fleet.positions.cell-size:0.05}") double cellSize
+    ) {
+        this.positionRepository = positionRepository;
+        this.taskScheduler = taskScheduler;
+        this.index = new PositionIndex(cellSize);
+    }
+
+    @PostConstruct
+    void start() {
+        reconcile();
+    }
+
+    /**
+     * Saves the moves not flushed yet.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fleet.positions.indexed", index, PositionIndex::size)
+                .description("Vehicles with a known position")
+                .register(registry);
+        Gauge.builder("fleet.positions.cells", index, PositionIndex::occupiedCells)
+                .description("Occupied cells of the position index")
+                .register(registry);
+        Gauge.builder("fleet.positions.unflushed", unflushed, Set::size)
+                .description("Vehicles that moved since the last flush")
+                .register(registry);
+    }
+
+    /**
+     * Moves the vehicles to the latest of their committed readings. Vehicles seen for the first time have their
+     * status looked up.
+     */
+    public void record(Collection<TelemetryReading> readings) {
+        Map<UUID, VehiclePosition> latest = new HashMap<>();
+        for (TelemetryReading reading : readings) {
+            if (reading.latitude() == null) {
+                continue;
+            }
+            latest.merge(reading.vehicleId(),
+                    new VehiclePosition(reading.vehicleId(), reading.latitude(), reading.longitude(),
+                            reading.recordedAt(), null),
+                    (a, b) -> b.recordedAt().isAfter(a.recordedAt()) ? b : a);
+        }
+
+        List<VehiclePosition> unknown = new ArrayList<>();
+        for (VehiclePosition position : latest.values()) {
+            VehiclePosition indexed = index.get(position.vehicleId());
+            if (indexed == null) {
+                unknown.add(position);
+            } else {
+                index.update(position.withStatus(indexed.status()));
+                unflushed.add(position.vehicleId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        Map<UUID, VehicleStatus> statuses = null;
+        try {
+            statuses = positionRepository.findStatuses(unknown.stream().map(VehiclePosition::vehicleId).toList());
+        } catch (RuntimeException e) {
+            // indexed without a status until the next reconcile rather than not at all
+            log.warn("Looking up the status of {} vehicles failed", unknown.size(), e);
+        }
+        for (VehiclePosition position : unknown) {
+            if (statuses != null && !statuses.containsKey(position.vehicleId())) {
+                // deleted since its readings were accepted
+                continue;
+            }
+            index.update(position.withStatus(statuses == null ? null : statuses.get(position.vehicleId())));
+            unflushed.add(position.vehicleId());
+        }
+    }
+
+    /**
+     * Updates the vehicle's status in the index once the current transaction commits.
+     */
+    public void statusChanged(UUID vehicleId, VehicleStatus status) {
+        afterCommit(() -> index.updateStatus(vehicleId, status));
+    }
+
+    /**
+     * Drops the vehicle from the index once the current transaction commits.
+     */
+    public void removed(UUID vehicleId) {
+        afterCommit(() -> index.remove(vehicleId));
+    }
+
+    /**
+     * Reconciles after the current transaction commits, for writes that do not report their rows.
+     */
+    public void changedInBulk() {
+        afterCommit(() -> taskScheduler.schedule(this::reconcile, Instant.now()));
+    }
+
+    /**
+     * Writes the latest position of every vehicle that moved since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${fleet.positions.flush-interval:PT5S}",
+            initialDelayString = "${fleet.positions.flush-interval:PT5S}")
+    void flush() {
+        List<VehiclePosition> moved = new ArrayList<>(unflushed.size());
+        for (UUID vehicleId : unflushed) {
+            unflushed.remove(vehicleId);
+            VehiclePosition position = index.get(vehicleId);
+            if (position != null) {
+                moved.add(position);
+            }
+        }
+        if (moved.isEmpty()) {
+            return;
+        }
+        try {
+            positionRepository.upsertNewer(moved);
+        } catch (RuntimeException e) {
+            log.warn("Saving {} vehicle positions failed, retrying with the next flush", moved.size(), e);
+            moved.forEach(position -> unflushed.add(position.vehicleId()));
+        }
+    }
+
+    /**
+     * Brings the index in line with the table, once the moves so far are flushed: newer positions, current statuses,
+     * and no vehicles that are gone. A vehicle first seen while this runs may be dropped until it reports again.
+     */
+    @Scheduled(fixedDelayString = "${fleet.positions.reconcile-interval:PT10M}",
+            initialDelayString = "${fleet.positions.reconcile-interval:PT10M}")
+    synchronized void reconcile() {
+        long started = System.nanoTime();
+        flush();
+        Set<UUID> stored = new HashSet<>();
+        positionRepository.forEach(position -> {
+            stored.add(position.vehicleId());
+            VehiclePosition indexed = index.get(position.vehicleId());
+            if (indexed == null || indexed.recordedAt().isBefore(position.recordedAt())) {
+                index.update(position);
+            } else {
+                index.updateStatus(position.vehicleId(), position.status());
+            }
+        });
+        for (UUID vehicleId : index.vehicleIds()) {
+            if (!stored.contains(vehicleId) && !unflushed.contains(vehicleId)) {
+                index.remove(vehicleId);
+            }
+        }
+        log.debug("Reconciled {} vehicle positions in {} ms", index.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Up to {@code limit} vehicles with one of {@code statuses} (any, if empty) nearest to the point, no further away
+     * than {@code radiusKm} if given.
+     */
+    public VehiclePositionsResponse nearest(double latitude, double longitude, Double radiusKm,
+                                            Set<VehicleStatus> statuses, int limit) {
+        checkPoint(latitude, longitude);
+        checkLimit(limit, MAX_NEAREST);
+        if (radiusKm != null && !(radiusKm > 0)) {
+            throw new IllegalArgumentException("radiusKm must be positive");
+        }
+        PositionIndex.Hits hits = index.nearest(latitude, longitude,
+                radiusKm == null ? Double.POSITIVE_INFINITY : radiusKm, statuses, limit);
+        return new VehiclePositionsResponse(hits.positions().stream()
+                .map(position -> response(position,
+                        PositionIndex.distanceKm(latitude, longitude, position.latitude(), position.longitude())))
+                .toList(), hits.truncated());
+    }
+
+    /**
+     * Up to {@code limit} vehicles with one of {@code statuses} (any, if empty) inside the box.
+     */
+    public VehiclePositionsResponse within(double minLatitude, double minLongitude, double maxLatitude,
+                                           double maxLongitude, Set<VehicleStatus> statuses, int limit) {
+        checkPoint(minLatitude, minLongitude);
+        checkPoint(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("minLatitude must not be greater than maxLatitude");
+        }
+        checkLimit(limit, MAX_WITHIN);
+        PositionIndex.Hits hits = index.within(minLatitude, minLongitude, maxLatitude, maxLongitude, statuses, limit);
+        return new VehiclePositionsResponse(hits.positions().stream()
+                .map(position -> response(position, null))
+                .toList(), hits.truncated());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static VehiclePositionResponse response(VehiclePosition position, Double distanceKm) {
+        return new VehiclePositionResponse(position.vehicleId(), position.status(), position.latitude(),
+                position.longitude(), position.recordedAt(), distanceKm);
+    }
+
+    private static void checkPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90: " + latitude);
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180: " + longitude);
+        }
+    }
+
+    private static void checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new IllegalArgumentException("limit must be between 1 and " + max);
+        }
+    }
+}
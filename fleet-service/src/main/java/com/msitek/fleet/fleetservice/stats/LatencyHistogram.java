@@ -0,0 +1,99 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-size log-linear histogram of durations in microseconds.
+ * <p>
+ * Values below 16 get a bucket each; above that, every power of two is split into 16 linear sub-buckets, so a
+ * bucket's width is at most 1/16 of its lower bound and reported percentiles are within 6.25% of the true value.
+ * Buckets cover up to 2<sup>41</sup> µs (about 25 days) in 608 counters; recording is one array increment,
+ * one add and, for a new maximum, one compare-and-set.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+
+    static final int BUCKETS = SUB_BUCKETS * (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    void record(long micros) {
+        counts.incrementAndGet(bucketOf(micros));
+        sumMicros.addAndGet(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Copies the histogram, optionally zeroing it. Every recording lands in exactly one interval, though the
+     * copied buckets, sum and maximum are not read atomically together.
+     */
+    Snapshot snapshot(boolean reset) {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+            count += copy[i];
+        }
+        long sum = reset ? sumMicros.getAndSet(0) : sumMicros.get();
+        long max = reset ? maxMicros.getAndSet(0) : maxMicros.get();
+        return new Snapshot(count, sum, max, copy);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Highest value that falls into {@code bucket}.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = bucket & (SUB_BUCKETS - 1);
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    record Snapshot(long count, long sumMicros, long maxMicros, long[] counts) {
+
+        /**
+         * Smallest bucket bound at or below which {@code quantile} of the values fall, capped by the exact maximum.
+         */
+        long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        double mean() {
+            return count == 0 ? 0 : (double) sumMicros / count;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import com.msitek.fleet.fleetservice.stats.dto.RequestRate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events per second over the last 1, 5 and 15 minutes, from a ring of per-second counters.
+ * <p>
+ * Every slot packs the second it counts (upper 32 bits) and that second's count (lower 32 bits) into one long, so
+ * recycling a stale slot and counting into it is a single compare-and-set and the ring never needs clearing.
+ * Rates are taken over complete seconds only. The ring can be striped: each thread counts into the stripe picked
+ * by its id, and reads add the stripes up.
+ */
+final class RateWindow {
+
+    static final int SECONDS = 15 * 60;
+    private static final int SLOTS = SECONDS + 1;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final int stripeMask;
+    private final AtomicLongArray slots;
+
+    /**
+     * @param stripes number of rings, a power of two
+     */
+    RateWindow(int stripes) {
+        this.stripeMask = stripes - 1;
+        this.slots = new AtomicLongArray(stripes * SLOTS);
+    }
+
+    /**
+     * @param second seconds since a fixed origin shared by every reader and writer of this window
+     */
+    void increment(long second) {
+        int index = (int) (Thread.currentThread().threadId() & stripeMask) * SLOTS + (int) (second % SLOTS);
+        long current;
+        long next;
+        do {
+            current = slots.get(index);
+            long slotSecond = current >>> 32;
+            if (slotSecond > second) {
+                // the slot moved on a whole ring ago; too late to count
+                return;
+            }
+            next = slotSecond == second ? current + 1 : second << 32 | 1;
+        } while (!slots.compareAndSet(index, current, next));
+    }
+
+    /**
+     * @param second current second; it is still filling up and not included
+     */
+    RequestRate rates(long second) {
+        long oneMinute = 0;
+        long fiveMinutes = 0;
+        long fifteenMinutes = 0;
+        for (int age = 1; age <= SECONDS && age <= second; age++) {
+            long counted = second - age;
+            long count = 0;
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                long slot = slots.get(stripe * SLOTS + (int) (counted % SLOTS));
+                if (slot >>> 32 == counted) {
+                    count += slot & COUNT_MASK;
+                }
+            }
+            if (age <= 60) {
+                oneMinute += count;
+            }
+            if (age <= 300) {
+                fiveMinutes += count;
+            }
+            fifteenMinutes += count;
+        }
+        return new RequestRate(
+                perSecond(oneMinute, Math.min(60, second)),
+                perSecond(fiveMinutes, Math.min(300, second)),
+                perSecond(fifteenMinutes, Math.min(SECONDS, second))
+        );
+    }
+
+    private static double perSecond(long count, long seconds) {
+        return seconds == 0 ? 0 : Math.round(count * 1000.0 / seconds) / 1000.0;
+    }
+}
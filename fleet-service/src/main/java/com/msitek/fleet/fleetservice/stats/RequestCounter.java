@@ -1,27 +1,87 @@
 package com.msitek.fleet.fleetservice.stats;
 
+import com.msitek.fleet.fleetservice.stats.dto.RequestRate;
+import com.msitek.fleet.fleetservice.stats.dto.RequestStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.stream.Collectors;
 
+/**
+ * Request counts and rates per endpoint and per status class.
+ * <p>
+ * Endpoints are keyed by route template ({@code /vehicles/{id}}, not the concrete URI), so the number of keys is
+ * bounded by the application's mappings; past {@code fleet.request-stats.max-endpoints} distinct routes, further ones
+ * are counted under {@link #OVERFLOW_ROUTE}. Counting a request to an already known route does not allocate:
+ * the route string is the mapping's own instance, methods and status classes index fixed arrays of
+ * {@link LongAdder}s, and keys like {@code "GET /vehicles/{id}"} are only built for snapshots.
+ * <p>
+ * Next to the totals since startup, every count also goes into a {@link RateWindow} for 1, 5 and 15 minute rates.
+ * The total and per-status windows are striped, since every request hits them; an endpoint's window is allocated
+ * on its first request.
+ */
 @Component
 public class RequestCounter {
 
+    /**
+     * Route of requests that no handler mapping matched.
+     */
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    /**
+     * Route of requests to endpoints beyond the cardinality cap.
+     */
+    public static final String OVERFLOW_ROUTE = "OTHER";
+
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final long origin = System.nanoTime();
     private final LongAdder total = new LongAdder();
-    private final ConcurrentHashMap<String, LongAdder> perEndpoint = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, LongAdder> perStatusGroup = new ConcurrentHashMap<>();
+    private final RateWindow totalRate = new RateWindow(STRIPES);
+    private final LongAdder[] perStatusClass = newAdders(RequestKeys.STATUS_CLASSES);
+    private final RateWindow[] perStatusClassRate = new RateWindow[RequestKeys.STATUS_CLASSES];
+    private final RouteTable<Endpoint> perEndpoint;
 
-    public void increment(String method, String path, int status) {
-        total.increment();
+    public RequestCounter(@Value("${fleet.request-stats.max-endpoints:200}") int maxEndpoints) {
+        this.perEndpoint = new RouteTable<>(maxEndpoints, Endpoint::new);
+        for (int i = 0; i < perStatusClassRate.length; i++) {
+            perStatusClassRate[i] = new RateWindow(STRIPES);
+        }
+    }
+
+    /**
+     * @param method HTTP method
+     * @param route  route template of the handler that served the request, or {@link #UNMATCHED_ROUTE}
+     * @param status response status
+     * @param now    {@link System#nanoTime()} when the request completed
+     */
+    public void increment(String method, String route, int status, long now) {
+        long second = TimeUnit.NANOSECONDS.toSeconds(now - origin);
+        int methodIndex = RequestKeys.methodIndex(method);
+        int statusClass = RequestKeys.statusClassIndex(status);
 
-        String endpointKey = method + " " + path;
-        perEndpoint.computeIfAbsent(endpointKey, k -> new LongAdder()).increment();
+        total.increment();
+        totalRate.increment(second);
+        Endpoint endpoint = perEndpoint.get(route);
+        endpoint.counts[methodIndex].increment();
+        endpoint.rate(methodIndex).increment(second);
+        perStatusClass[statusClass].increment();
+        perStatusClassRate[statusClass].increment(second);
+    }
 
-        String statusGroup = (status / 100) + "xx";
-        perStatusGroup.computeIfAbsent(statusGroup, k -> new LongAdder()).increment();
+    public RequestStatsResponse snapshot() {
+        return new RequestStatsResponse(
+                total(),
+                perEndpointSnapshot(),
+                perStatusSnapshot(),
+                rate(),
+                perEndpointRates(),
+                perStatusRates()
+        );
     }
 
     public long total() {
@@ -29,18 +89,92 @@ public class RequestCounter {
     }
 
     public Map<String, Long> perEndpointSnapshot() {
-        return perEndpoint.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> e.getValue().sum()
-                ));
+        Map<String, Long> snapshot = new HashMap<>();
+        perEndpoint.forEach((route, endpoint) -> {
+            for (int i = 0; i < endpoint.counts.length; i++) {
+                long count = endpoint.counts[i].sum();
+                if (count > 0) {
+                    snapshot.put(RequestKeys.METHODS[i] + " " + route, count);
+                }
+            }
+        });
+        return snapshot;
     }
 
     public Map<String, Long> perStatusSnapshot() {
-        return perStatusGroup.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> e.getValue().sum()
-                ));
+        Map<String, Long> snapshot = new HashMap<>();
+        for (int i = 0; i < perStatusClass.length; i++) {
+            long count = perStatusClass[i].sum();
+            if (count > 0) {
+                snapshot.put(RequestKeys.statusClassName(i), count);
+            }
+        }
+        return snapshot;
+    }
+
+    public RequestRate rate() {
+        return totalRate.rates(currentSecond());
+    }
+
+    /**
+     * Rates of endpoints that served requests in the last 15 minutes.
+     */
+    public Map<String, RequestRate> perEndpointRates() {
+        long second = currentSecond();
+        Map<String, RequestRate> rates = new HashMap<>();
+        perEndpoint.forEach((route, endpoint) -> {
+            for (int i = 0; i < endpoint.rates.length(); i++) {
+                RateWindow window = endpoint.rates.get(i);
+                if (window != null) {
+                    putIfActive(rates, RequestKeys.METHODS[i] + " " + route, window.rates(second));
+                }
+            }
+        });
+        return rates;
+    }
+
+    /**
+     * Rates of status classes returned in the last 15 minutes.
+     */
+    public Map<String, RequestRate> perStatusRates() {
+        long second = currentSecond();
+        Map<String, RequestRate> rates = new HashMap<>();
+        for (int i = 0; i < perStatusClassRate.length; i++) {
+            putIfActive(rates, RequestKeys.statusClassName(i), perStatusClassRate[i].rates(second));
+        }
+        return rates;
+    }
+
+    private long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - origin);
+    }
+
+    private static void putIfActive(Map<String, RequestRate> rates, String key, RequestRate rate) {
+        if (rate.fifteenMinutes() > 0) {
+            rates.put(key, rate);
+        }
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static final class Endpoint {
+
+        final LongAdder[] counts = newAdders(RequestKeys.METHODS.length);
+        final AtomicReferenceArray<RateWindow> rates = new AtomicReferenceArray<>(RequestKeys.METHODS.length);
+
+        RateWindow rate(int methodIndex) {
+            RateWindow window = rates.get(methodIndex);
+            if (window == null) {
+                rates.compareAndSet(methodIndex, null, new RateWindow(1));
+                window = rates.get(methodIndex);
+            }
+            return window;
+        }
     }
-}
\ No newline at end of file
+}
@@ -6,16 +6,35 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
 
 @Component
 public class RequestCountingFilter extends OncePerRequestFilter {
 
+    private static final String ALREADY_FILTERED_ATTRIBUTE = RequestCountingFilter.class.getName() + ALREADY_FILTERED_SUFFIX;
+
     private final RequestCounter requestCounter;
+    private final RequestLatencyRecorder latencyRecorder;
+    private final RequestMetrics requestMetrics;
 
-    public RequestCountingFilter(RequestCounter requestCounter) {
+    public RequestCountingFilter(
+            RequestCounter requestCounter,
+            RequestLatencyRecorder latencyRecorder,
+            RequestMetrics requestMetrics
+    ) {
         this.requestCounter = requestCounter;
+        this.latencyRecorder = latencyRecorder;
+        this.requestMetrics = requestMetrics;
+    }
+
+    /**
+     * Constant instead of the default, which concatenates the filter name on every request.
+     */
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED_ATTRIBUTE;
     }
 
     @Override
@@ -25,16 +44,23 @@ public class RequestCountingFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
+        long start = System.nanoTime();
         filterChain.doFilter(request, response);
+        long end = System.nanoTime();
 
         String path = request.getRequestURI();
-        String method = request.getMethod();
-        int status = response.getStatus();
 
         if (!path.startsWith("/swagger-ui")
                 && !path.startsWith("/v3/api-docs")
                 && !path.startsWith("/stats")){
-            requestCounter.increment(method, path, status);
+            // Set by Spring MVC once a handler has been matched; bounded, unlike the URI itself
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern instanceof String p ? p : RequestCounter.UNMATCHED_ROUTE;
+            String method = request.getMethod();
+            int status = response.getStatus();
+            requestCounter.increment(method, route, status, end);
+            latencyRecorder.record(method, route, status, end - start);
+            requestMetrics.record(method, route, status, end - start);
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.msitek.fleet.fleetservice.stats;
+
+/**
+ * Fixed index spaces for HTTP methods and status classes, so per-request statistics can live in arrays
+ * instead of maps keyed by freshly built strings.
+ */
+final class RequestKeys {
+
+    static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE", "OTHER"};
+
+    /**
+     * {@code other}, {@code 1xx} to {@code 5xx}.
+     */
+    static final int STATUS_CLASSES = 6;
+
+    private RequestKeys() {
+    }
+
+    static int methodIndex(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "HEAD" -> 1;
+            case "POST" -> 2;
+            case "PUT" -> 3;
+            case "PATCH" -> 4;
+            case "DELETE" -> 5;
+            case "OPTIONS" -> 6;
+            case "TRACE" -> 7;
+            default -> 8;
+        };
+    }
+
+    static int statusClassIndex(int status) {
+        int statusClass = status / 100;
+        return statusClass >= 1 && statusClass <= 5 ? statusClass : 0;
+    }
+
+    static String statusClassName(int index) {
+        return index == 0 ? "other" : index + "xx";
+    }
+}
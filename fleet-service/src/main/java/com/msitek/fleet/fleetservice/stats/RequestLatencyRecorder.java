@@ -0,0 +1,97 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import com.msitek.fleet.fleetservice.stats.dto.LatencyStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Request latency histograms per endpoint and status class.
+ * <p>
+ * Routes are bounded the same way as in {@link RequestCounter}. Each route holds one slot per method and status
+ * class; a slot's {@link LatencyHistogram} (about 5 KB) is allocated on its first request, so recording into a
+ * known slot does not allocate. Histograms accumulate until {@link #snapshot(boolean) reset}, which starts a new
+ * interval.
+ */
+@Component
+public class RequestLatencyRecorder {
+
+    private static final int SLOTS = RequestKeys.METHODS.length * RequestKeys.STATUS_CLASSES;
+
+    private final RouteTable<AtomicReferenceArray<LatencyHistogram>> perEndpoint;
+    private volatile Instant intervalStart = Instant.now();
+
+    public RequestLatencyRecorder(@Value("${fleet.request-stats.max-endpoints:200}") int maxEndpoints) {
+        this.perEndpoint = new RouteTable<>(maxEndpoints, () -> new AtomicReferenceArray<>(SLOTS));
+    }
+
+    /**
+     * @param method       HTTP method
+     * @param route        route template of the handler that served the request, or {@link RequestCounter#UNMATCHED_ROUTE}
+     * @param status       response status
+     * @param elapsedNanos time spent serving the request
+     */
+    public void record(String method, String route, int status, long elapsedNanos) {
+        AtomicReferenceArray<LatencyHistogram> slots = perEndpoint.get(route);
+        int slot = RequestKeys.methodIndex(method) * RequestKeys.STATUS_CLASSES + RequestKeys.statusClassIndex(status);
+        LatencyHistogram histogram = slots.get(slot);
+        if (histogram == null) {
+            slots.compareAndSet(slot, null, new LatencyHistogram());
+            histogram = slots.get(slot);
+        }
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /**
+     * Percentiles of the current interval. With {@code reset}, the histograms are zeroed as they are read, so
+     * consecutive resetting snapshots cover adjacent intervals without losing or double-counting requests.
+     */
+    public synchronized LatencyStatsResponse snapshot(boolean reset) {
+        Instant from = intervalStart;
+        Instant to = Instant.now();
+        if (reset) {
+            intervalStart = to;
+        }
+
+        List<LatencyStatsResponse.Endpoint> endpoints = new ArrayList<>();
+        perEndpoint.forEach((route, slots) -> {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                LatencyHistogram histogram = slots.get(slot);
+                if (histogram == null) {
+                    continue;
+                }
+                LatencyHistogram.Snapshot snapshot = histogram.snapshot(reset);
+                if (snapshot.count() > 0) {
+                    endpoints.add(toEndpoint(route, slot, snapshot));
+                }
+            }
+        });
+        endpoints.sort(Comparator.comparing(LatencyStatsResponse.Endpoint::endpoint)
+                .thenComparing(LatencyStatsResponse.Endpoint::status));
+        return new LatencyStatsResponse(from, to, endpoints);
+    }
+
+    private static LatencyStatsResponse.Endpoint toEndpoint(String route, int slot, LatencyHistogram.Snapshot snapshot) {
+        return new LatencyStatsResponse.Endpoint(
+                RequestKeys.METHODS[slot / RequestKeys.STATUS_CLASSES] + " " + route,
+                RequestKeys.statusClassName(slot % RequestKeys.STATUS_CLASSES),
+                snapshot.count(),
+                millis(snapshot.mean()),
+                millis(snapshot.percentile(0.5)),
+                millis(snapshot.percentile(0.9)),
+                millis(snapshot.percentile(0.99)),
+                millis(snapshot.percentile(0.999)),
+                millis(snapshot.maxMicros())
+        );
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publishes request counts and latencies to Micrometer as the {@code fleet.http.requests} timer, tagged with
+ * {@code method}, {@code route} and {@code status} class.
+ * <p>
+ * Tags come from the same bounded route table as {@link RequestCounter}, so the number of series is capped by
+ * {@code fleet.request-stats.max-endpoints}. Each timer is registered on the first request of its slot and kept
+ * in the slot afterwards: looking a timer up in the registry on every request would build tags and a meter id
+ * each time.
+ */
+@Component
+public class RequestMetrics {
+
+    static final String METER_NAME = "fleet.http.requests";
+
+    private static final int SLOTS = RequestKeys.METHODS.length * RequestKeys.STATUS_CLASSES;
+
+    private final MeterRegistry registry;
+    private final RouteTable<AtomicReferenceArray<Timer>> perEndpoint;
+
+    public RequestMetrics(MeterRegistry registry, @Value("${fleet.request-stats.max-endpoints:200}") int maxEndpoints) {
+        this.registry = registry;
+        this.perEndpoint = new RouteTable<>(maxEndpoints, () -> new AtomicReferenceArray<>(SLOTS));
+    }
+
+    /**
+     * @param method       HTTP method
+     * @param route        route template of the handler that served the request, or {@link RequestCounter#UNMATCHED_ROUTE}
+     * @param status       response status
+     * @param elapsedNanos time spent serving the request
+     */
+    public void record(String method, String route, int status, long elapsedNanos) {
+        AtomicReferenceArray<Timer> slots = perEndpoint.get(route);
+        int slot = RequestKeys.methodIndex(method) * RequestKeys.STATUS_CLASSES + RequestKeys.statusClassIndex(status);
+        Timer timer = slots.get(slot);
+        if (timer == null) {
+            // the registry returns the same timer for the same id, so losing this race is harmless
+            timer = register(route, slot);
+            slots.set(slot, timer);
+        }
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(String route, int slot) {
+        return Timer.builder(METER_NAME)
+                .description("Requests served, by route template and status class")
+                .tag("method", RequestKeys.METHODS[slot / RequestKeys.STATUS_CLASSES])
+                .tag("route", route)
+                .tag("status", RequestKeys.statusClassName(slot % RequestKeys.STATUS_CLASSES))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+}
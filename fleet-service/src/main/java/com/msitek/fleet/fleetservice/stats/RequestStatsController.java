@@ -1,11 +1,17 @@
 package com.msitek.fleet.fleetservice.stats;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.msitek.fleet.fleetservice.stats.dto.CacheStatsResponse;
+import com.msitek.fleet.fleetservice.stats.dto.LatencyStatsResponse;
 import com.msitek.fleet.fleetservice.stats.dto.RequestStatsResponse;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -14,22 +20,58 @@ import org.springframework.web.bind.annotation.RestController;
 public class RequestStatsController {
 
     private final RequestCounter requestCounter;
+    private final RequestLatencyRecorder latencyRecorder;
+    private final VehicleLookupCache vehicleLookupCache;
 
-    public RequestStatsController(RequestCounter requestCounter) {
+    public RequestStatsController(
+            RequestCounter requestCounter,
+            RequestLatencyRecorder latencyRecorder,
+            VehicleLookupCache vehicleLookupCache
+    ) {
         this.requestCounter = requestCounter;
+        this.latencyRecorder = latencyRecorder;
+        this.vehicleLookupCache = vehicleLookupCache;
     }
 
     @Operation(
             summary = "Get request statistics",
-            description = "Returns total number of executed requests, grouped by endpoint and status code category"
+            description = "Returns total number of executed requests and requests per second over the last 1, 5 and "
+                    + "15 minutes, grouped by endpoint and status code category"
     )
     @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
     @GetMapping("/requests")
     public RequestStatsResponse requests() {
-        return new RequestStatsResponse(
-                requestCounter.total(),
-                requestCounter.perEndpointSnapshot(),
-                requestCounter.perStatusSnapshot()
+        return requestCounter.snapshot();
+    }
+
+    @Operation(
+            summary = "Get request latency percentiles",
+            description = "Returns mean, p50, p90, p99, p99.9 and maximum latency per endpoint and status code category "
+                    + "since the last reset"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+    @GetMapping("/latency")
+    public LatencyStatsResponse latency(
+            @Parameter(description = "Start a new interval after reading this one")
+            @RequestParam(defaultValue = "false") boolean reset
+    ) {
+        return latencyRecorder.snapshot(reset);
+    }
+
+    @Operation(
+            summary = "Get vehicle lookup cache statistics",
+            description = "Returns size, hit, miss and eviction counts of the by-id, by-VIN and by-plate lookup cache"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+    @GetMapping("/cache")
+    public CacheStatsResponse cache() {
+        CacheStats stats = vehicleLookupCache.stats();
+        return new CacheStatsResponse(
+                vehicleLookupCache.size(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
         );
     }
 }
@@ -0,0 +1,54 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Per-route statistics with a hard cap on the number of routes. Once {@code maxRoutes} routes are registered,
+ * every further route shares the entry reported as {@link RequestCounter#OVERFLOW_ROUTE}. Looking up a known
+ * route does not allocate.
+ */
+final class RouteTable<T> {
+
+    private final int maxRoutes;
+    private final Supplier<T> factory;
+    private final ConcurrentHashMap<String, T> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger registered = new AtomicInteger();
+    private final T overflow;
+
+    RouteTable(int maxRoutes, Supplier<T> factory) {
+        this.maxRoutes = maxRoutes;
+        this.factory = factory;
+        this.overflow = factory.get();
+    }
+
+    T get(String route) {
+        T entry = routes.get(route);
+        if (entry != null) {
+            return entry;
+        }
+        entry = routes.computeIfAbsent(route, r -> reserve() ? factory.get() : null);
+        return entry != null ? entry : overflow;
+    }
+
+    /**
+     * Visits every registered route, then the overflow entry.
+     */
+    void forEach(BiConsumer<String, T> action) {
+        routes.forEach(action);
+        action.accept(RequestCounter.OVERFLOW_ROUTE, overflow);
+    }
+
+    private boolean reserve() {
+        int count;
+        do {
+            count = registered.get();
+            if (count >= maxRoutes) {
+                return false;
+            }
+        } while (!registered.compareAndSet(count, count + 1));
+        return true;
+    }
+}
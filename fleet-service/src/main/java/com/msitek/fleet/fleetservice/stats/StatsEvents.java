@@ -0,0 +1,41 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import com.msitek.fleet.fleetservice.events.EventStream;
+import com.msitek.fleet.fleetservice.stats.dto.StatsSnapshot;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleAggregates;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Pushes a {@link StatsSnapshot} to the event stream every {@code fleet.events.stats-interval}. It is built once per
+ * interval however many clients are subscribed, and not at all while none are.
+ */
+@Component
+public class StatsEvents {
+
+    private final EventStream eventStream;
+    private final RequestCounter requestCounter;
+    private final VehicleAggregates vehicleAggregates;
+    private final Duration interval;
+
+    public StatsEvents(
+            EventStream eventStream,
+            RequestCounter requestCounter,
+            VehicleAggregates vehicleAggregates,
+            @Value("${fleet.events.stats-interval:PT5S}") Duration interval
+    ) {
+        this.eventStream = eventStream;
+        this.requestCounter = requestCounter;
+        this.vehicleAggregates = vehicleAggregates;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        eventStream.publishPeriodically("stats", interval,
+                () -> new StatsSnapshot(requestCounter.snapshot(), vehicleAggregates.get()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.msitek.fleet.fleetservice.stats.dto;
+
+public record CacheStatsResponse(
+        long size,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions
+) {
+}
@@ -0,0 +1,27 @@
+package com.msitek.fleet.fleetservice.stats.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record LatencyStatsResponse(
+        Instant from,
+        Instant to,
+        List<Endpoint> endpoints
+) {
+
+    /**
+     * Latencies in milliseconds of one endpoint's responses in one status class.
+     */
+    public record Endpoint(
+            String endpoint,
+            String status,
+            long count,
+            double meanMs,
+            double p50Ms,
+            double p90Ms,
+            double p99Ms,
+            double p999Ms,
+            double maxMs
+    ) {
+    }
+}
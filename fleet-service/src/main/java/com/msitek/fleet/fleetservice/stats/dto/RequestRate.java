@@ -0,0 +1,11 @@
+package com.msitek.fleet.fleetservice.stats.dto;
+
+/**
+ * Average requests per second over the last 1, 5 and 15 minutes, or since startup if that is shorter.
+ */
+public record RequestRate(
+        double oneMinute,
+        double fiveMinutes,
+        double fifteenMinutes
+) {
+}
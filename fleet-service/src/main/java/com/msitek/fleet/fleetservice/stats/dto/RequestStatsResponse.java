@@ -5,6 +5,9 @@ import java.util.Map;
 public record RequestStatsResponse(
         long totalRequests,
         Map<String, Long> perEndpoint,
-        Map<String, Long> perStatus
+        Map<String, Long> perStatus,
+        RequestRate rate,
+        Map<String, RequestRate> perEndpointRate,
+        Map<String, RequestRate> perStatusRate
 ) {
 }
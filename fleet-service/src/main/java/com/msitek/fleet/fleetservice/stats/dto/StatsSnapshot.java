@@ -0,0 +1,13 @@
+package com.msitek.fleet.fleetservice.stats.dto;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleAggregatesResponse;
+
+/**
+ * Payload of the periodic {@code stats} event: request statistics as served by {@code /stats/requests}, and the
+ * fleet composition as served by {@code /vehicles/aggregates}.
+ */
+public record StatsSnapshot(
+        RequestStatsResponse requests,
+        VehicleAggregatesResponse fleet
+) {
+}
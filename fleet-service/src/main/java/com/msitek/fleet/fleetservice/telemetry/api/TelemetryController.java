@@ -0,0 +1,45 @@
+package com.msitek.fleet.fleetservice.telemetry.api;
+
+import com.msitek.fleet.fleetservice.telemetry.api.dto.TelemetryBatchRequest;
+import com.msitek.fleet.fleetservice.telemetry.api.dto.TelemetryIngestResponse;
+import com.msitek.fleet.fleetservice.telemetry.service.TelemetryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/telemetry")
+@RequiredArgsConstructor
+@Tag(name = "Telemetry", description = "Ingestion of vehicle position and sensor readings")
+public class TelemetryController {
+
+    private final TelemetryService telemetryService;
+
+    @Operation(
+            summary = "Ingest telemetry readings",
+            description = "Accepts up to 1000 readings of any vehicles, each identified by `vehicleId` or `vin`. "
+                    + "Valid readings of known vehicles are queued and written shortly after; the others are reported "
+                    + "by index. When the queue is full the whole batch is refused with 503 and `Retry-After`, and "
+                    + "should be sent again later."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Batch queued, see rejected readings"),
+            @ApiResponse(responseCode = "400", description = "Validation error", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Ingestion is behind, nothing was queued", content = @Content)
+    })
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public TelemetryIngestResponse ingest(@Valid @RequestBody TelemetryBatchRequest request) {
+        return telemetryService.ingest(request);
+    }
+}
@@ -0,0 +1,16 @@
+package com.msitek.fleet.fleetservice.telemetry.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Readings are validated one by one, so that one bad reading does not cost the rest of the batch.
+ */
+public record TelemetryBatchRequest(
+
+        @NotEmpty
+        @Size(max = 1000)
+        List<TelemetryReadingRequest> readings
+) {}
@@ -0,0 +1,18 @@
+package com.msitek.fleet.fleetservice.telemetry.api.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a telemetry batch: {@code accepted} readings are queued for writing, {@code rejections} lists the
+ * others by their index in the batch.
+ */
+public record TelemetryIngestResponse(
+        int accepted,
+        List<Rejection> rejections
+) {
+
+    public record Rejection(
+            int index,
+            String reason
+    ) {}
+}
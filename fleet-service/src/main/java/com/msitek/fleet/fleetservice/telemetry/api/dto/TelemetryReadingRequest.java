@@ -0,0 +1,38 @@
+package com.msitek.fleet.fleetservice.telemetry.api.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One reading of a vehicle, identified by either {@code vehicleId} or {@code vin}. Latitude and longitude are sent
+ * together or not at all; any measurement may be missing.
+ */
+public record TelemetryReadingRequest(
+
+        UUID vehicleId,
+
+        String vin,
+
+        @NotNull
+        Instant recordedAt,
+
+        @DecimalMin("-90")
+        @DecimalMax("90")
+        Double latitude,
+
+        @DecimalMin("-180")
+        @DecimalMax("180")
+        Double longitude,
+
+        @PositiveOrZero
+        Double odometerKm,
+
+        @DecimalMin("0")
+        @DecimalMax("100")
+        Float fuelLevel
+) {}
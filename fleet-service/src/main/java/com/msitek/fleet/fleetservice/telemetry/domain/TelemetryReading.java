@@ -0,0 +1,20 @@
+package com.msitek.fleet.fleetservice.telemetry.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A validated reading of a known vehicle, as queued for writing. Measurements may be {@code null}.
+ *
+ * @param receivedNanos {@link System#nanoTime()} when the reading was accepted
+ */
+public record TelemetryReading(
+        UUID vehicleId,
+        Instant recordedAt,
+        Instant receivedAt,
+        long receivedNanos,
+        Double latitude,
+        Double longitude,
+        Double odometerKm,
+        Float fuelLevel
+) {}
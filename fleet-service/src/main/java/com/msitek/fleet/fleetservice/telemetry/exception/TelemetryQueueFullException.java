@@ -0,0 +1,8 @@
+package com.msitek.fleet.fleetservice.telemetry.exception;
+
+public class TelemetryQueueFullException extends RuntimeException {
+
+    public TelemetryQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package com.msitek.fleet.fleetservice.telemetry.repository;
+
+import com.msitek.fleet.fleetservice.telemetry.domain.TelemetryReading;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class TelemetryRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String COPY_READINGS = """
+            COPY vehicle_telemetry (vehicle_id, recorded_at, received_at, latitude, longitude, odometer_km, fuel_level)
+            FROM STDIN (FORMAT csv)
+            """;
+
+    private static final String PARTITION_PREFIX = "vehicle_telemetry_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String FIND_DAILY_PARTITIONS = """
+            SELECT child.relname
+            FROM pg_inherits
+            JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+            JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+            WHERE parent.relname = 'vehicle_telemetry' AND child.relname ~ '^vehicle_telemetry_[0-9]{8}$'
+            """;
+
+    private static final String DELETE_DEFAULT_BEFORE = """
+            DELETE FROM vehicle_telemetry_default WHERE recorded_at < (?::date)::timestamp AT TIME ZONE 'UTC'
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes the readings with one COPY, committed as one transaction unless a transaction is active.
+     */
+    public long copy(List<TelemetryReading> readings) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_READINGS);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 256);
+                for (TelemetryReading reading : readings) {
+                    // Unquoted empty fields are NULL in COPY csv
+                    buffer.append(reading.vehicleId()).append(',')
+                            .append(reading.recordedAt()).append(',')
+                            .append(reading.receivedAt()).append(',');
+                    appendNullable(buffer, reading.latitude()).append(',');
+                    appendNullable(buffer, reading.longitude()).append(',');
+                    appendNullable(buffer, reading.odometerKm()).append(',');
+                    appendNullable(buffer, reading.fuelLevel()).append('\n');
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+                writeToCopy(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into vehicle_telemetry failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Creates the daily partition of {@code day} (UTC) unless it exists.
+     */
+    public void createPartition(LocalDate day) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARTITION_PREFIX + day.format(PARTITION_SUFFIX)
+                + " PARTITION OF vehicle_telemetry FOR VALUES FROM ('" + day + " 00:00+00') TO ('"
+                + day.plusDays(1) + " 00:00+00')");
+    }
+
+    /**
+     * Drops the daily partitions of days before {@code day}, with all their readings.
+     *
+     * @return the number of partitions dropped
+     */
+    public int dropPartitionsBefore(LocalDate day) {
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(FIND_DAILY_PARTITIONS, String.class)) {
+            LocalDate partitionDay = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (partitionDay.isBefore(day)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Deletes the readings of days before {@code day} that landed in the default partition, which is never dropped.
+     *
+     * @return the number of readings deleted
+     */
+    public int deleteDefaultBefore(LocalDate day) {
+        return jdbcTemplate.update(DELETE_DEFAULT_BEFORE, day.toString());
+    }
+
+    private static StringBuilder appendNullable(StringBuilder buffer, Number value) {
+        return value == null ? buffer : buffer.append(value);
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
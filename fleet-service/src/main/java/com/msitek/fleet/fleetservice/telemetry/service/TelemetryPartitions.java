@@ -0,0 +1,79 @@
+package com.msitek.fleet.fleetservice.telemetry.service;
+
+import com.msitek.fleet.fleetservice.telemetry.repository.TelemetryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps {@code vehicle_telemetry} partitioned by UTC day.
+ * <p>
+ * Partitions are created {@code fleet.telemetry.partitions-ahead} days in advance, so writes never wait for DDL and
+ * the default partition stays empty but for readings recorded far from now. Readings older than
+ * {@code fleet.telemetry.retention} are removed by dropping their partitions, which costs neither a large DELETE nor
+ * the vacuuming after it; the few in the default partition are deleted.
+ */
+@Slf4j
+@Component
+public class TelemetryPartitions {
+
+    private final TelemetryRepository telemetryRepository;
+    private final int partitionsAhead;
+    private final Period retention;
+
+    public TelemetryPartitions(
+            TelemetryRepository telemetryRepository,
+            @Value("${fleet.telemetry.partitions-ahead:3}") int partitionsAhead,
+            @Value("${fleet.telemetry.retention:P90D}") Period retention
+    ) {
+        this.telemetryRepository = telemetryRepository;
+        this.partitionsAhead = partitionsAhead;
+        this.retention = retention;
+    }
+
+    /**
+     * Maintains the partitions now, so today's exists before the first reading is written.
+     */
+    @PostConstruct
+    void start() {
+        maintain();
+    }
+
+    /**
+     * Creates the partitions of yesterday to {@code fleet.telemetry.partitions-ahead} days ahead and removes the
+     * readings past the retention.
+     */
+    @Scheduled(fixedDelayString = "${fleet.telemetry.partition-maintenance-interval:PT1H}",
+            initialDelayString = "${fleet.telemetry.partition-maintenance-interval:PT1H}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        // yesterday too, for vehicles that report late
+        for (int day = -1; day <= partitionsAhead; day++) {
+            createPartition(today.plusDays(day));
+        }
+        LocalDate retainedFrom = today.minus(retention);
+        int dropped = telemetryRepository.dropPartitionsBefore(retainedFrom);
+        if (dropped > 0) {
+            log.info("Dropped {} telemetry partitions older than {}", dropped, retention);
+        }
+        int deleted = telemetryRepository.deleteDefaultBefore(retainedFrom);
+        if (deleted > 0) {
+            log.info("Deleted {} telemetry readings older than {} from the default partition", deleted, retention);
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        try {
+            telemetryRepository.createPartition(day);
+        } catch (RuntimeException e) {
+            // e.g. the default partition already holds readings of that day; they stay there
+            log.warn("Creating the telemetry partition of {} failed", day, e);
+        }
+    }
+}
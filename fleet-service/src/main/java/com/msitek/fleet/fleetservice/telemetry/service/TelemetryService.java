@@ -0,0 +1,178 @@
+package com.msitek.fleet.fleetservice.telemetry.service;
+
+import com.msitek.fleet.fleetservice.telemetry.api.dto.TelemetryBatchRequest;
+import com.msitek.fleet.fleetservice.telemetry.api.dto.TelemetryIngestResponse;
+import com.msitek.fleet.fleetservice.telemetry.api.dto.TelemetryReadingRequest;
+import com.msitek.fleet.fleetservice.telemetry.domain.TelemetryReading;
+import com.msitek.fleet.fleetservice.telemetry.exception.TelemetryQueueFullException;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Validates telemetry batches and hands the readings of known vehicles to {@link TelemetryWriter}.
+ * <p>
+ * The vehicles of a batch are resolved together, with one query for those sent by id and one for those sent by VIN:
+ * a fleet larger than the vehicle lookup cache would miss it on most readings, and a query per reading would cost
+ * more than writing the batch. Readings recorded before the {@code fleet.telemetry.retention} are rejected, since
+ * no partition would keep them. Counts readings as {@code fleet_telemetry_readings_total}, by
+ * {@code outcome}: {@code accepted}, {@code rejected} as invalid, or {@code throttled} because the queue was full.
+ */
+@Service
+public class TelemetryService {
+
+    /**
+     * How far ahead of this server's clock a vehicle's clock may run.
+     */
+    static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final Validator validator;
+    private final VehicleRepository vehicleRepository;
+    private final TelemetryWriter writer;
+    private final Period retention;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter throttled;
+
+    public TelemetryService(
+            Validator validator,
+            VehicleRepository vehicleRepository,
+            TelemetryWriter writer,
+            MeterRegistry registry,
+            @Value("${fleet.telemetry.retention:P90D}") Period retention
+    ) {
+        this.validator = validator;
+        this.vehicleRepository = vehicleRepository;
+        this.writer = writer;
+        this.retention = retention;
+        this.accepted = readings(registry, "accepted");
+        this.rejected = readings(registry, "rejected");
+        this.throttled = readings(registry, "throttled");
+    }
+
+    /**
+     * Queues the valid readings of the batch and reports the others. A batch is queued whole or not at all.
+     *
+     * @throws TelemetryQueueFullException if the writer is too far behind to take the batch
+     */
+    public TelemetryIngestResponse ingest(TelemetryBatchRequest request) {
+        Instant receivedAt = Instant.now();
+        long receivedNanos = System.nanoTime();
+        // the start of the oldest day TelemetryPartitions keeps; older readings would only land in the default partition
+        Instant retainedFrom = LocalDate.ofInstant(receivedAt, ZoneOffset.UTC).minus(retention)
+                .atStartOfDay(ZoneOffset.UTC).toInstant();
+        List<TelemetryReadingRequest> batch = request.readings();
+        String[] problems = new String[batch.size()];
+        Set<UUID> ids = new HashSet<>();
+        Set<String> vins = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TelemetryReadingRequest reading = batch.get(i);
+            problems[i] = validate(reading, receivedAt, retainedFrom);
+            if (problems[i] == null && reading.vehicleId() != null) {
+                ids.add(reading.vehicleId());
+            } else if (problems[i] == null) {
+                vins.add(reading.vin());
+            }
+        }
+
+        Set<UUID> knownIds = new HashSet<>();
+        Map<String, UUID> idsByVin = new HashMap<>();
+        if (!ids.isEmpty()) {
+            vehicleRepository.findIdentitiesByIdIn(ids).forEach(vehicle -> knownIds.add(vehicle.getId()));
+        }
+        if (!vins.isEmpty()) {
+            vehicleRepository.findIdentitiesByVinIn(vins).forEach(vehicle -> idsByVin.put(vehicle.getVin(), vehicle.getId()));
+        }
+
+        List<TelemetryReading> readings = new ArrayList<>(batch.size());
+        List<TelemetryIngestResponse.Rejection> rejections = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TelemetryReadingRequest reading = batch.get(i);
+            UUID vehicleId = null;
+            if (problems[i] == null) {
+                if (reading.vehicleId() == null) {
+                    vehicleId = idsByVin.get(reading.vin());
+                } else if (knownIds.contains(reading.vehicleId())) {
+                    vehicleId = reading.vehicleId();
+                }
+                if (vehicleId == null) {
+                    problems[i] = "Unknown vehicle: " + (reading.vehicleId() != null ? reading.vehicleId() : reading.vin());
+                }
+            }
+            if (problems[i] != null) {
+                rejections.add(new TelemetryIngestResponse.Rejection(i, problems[i]));
+                continue;
+            }
+            readings.add(new TelemetryReading(
+                    vehicleId,
+                    reading.recordedAt(),
+                    receivedAt,
+                    receivedNanos,
+                    reading.latitude(),
+                    reading.longitude(),
+                    reading.odometerKm(),
+                    reading.fuelLevel()
+            ));
+        }
+
+        rejected.increment(rejections.size());
+        try {
+            writer.enqueue(readings);
+        } catch (TelemetryQueueFullException e) {
+            throttled.increment(readings.size());
+            throw e;
+        }
+        accepted.increment(readings.size());
+        return new TelemetryIngestResponse(readings.size(), rejections);
+    }
+
+    private String validate(TelemetryReadingRequest reading, Instant receivedAt, Instant retainedFrom) {
+        if (reading == null) {
+            return "Reading is null";
+        }
+        var violations = validator.validate(reading);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if ((reading.vehicleId() == null) == (reading.vin() == null)) {
+            return "Exactly one of vehicleId and vin is required";
+        }
+        if ((reading.latitude() == null) != (reading.longitude() == null)) {
+            return "latitude and longitude must be sent together";
+        }
+        if (reading.recordedAt().isAfter(receivedAt.plus(MAX_CLOCK_SKEW))) {
+            return "recordedAt is in the future: " + reading.recordedAt();
+        }
+        if (reading.recordedAt().isBefore(retainedFrom)) {
+            return "recordedAt is older than the " + retention + " retention: " + reading.recordedAt();
+        }
+        return null;
+    }
+
+    private static Counter readings(MeterRegistry registry, String outcome) {
+        return Counter.builder("fleet.telemetry.readings")
+                .description("Telemetry readings received, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,224 @@
+package com.msitek.fleet.fleetservice.telemetry.service;
+
+import com.msitek.fleet.fleetservice.position.service.VehiclePositions;
+import com.msitek.fleet.fleetservice.telemetry.domain.TelemetryReading;
+import com.msitek.fleet.fleetservice.telemetry.exception.TelemetryQueueFullException;
+import com.msitek.fleet.fleetservice.telemetry.repository.TelemetryRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes accepted telemetry to the database in the background, in as few transactions as it can.
+ * <p>
+ * Batches wait in a queue of at most {@code fleet.telemetry.queue-capacity} readings. A single writer thread takes
+ * everything that queued up while it was writing, up to {@code fleet.telemetry.max-group-size} readings, and writes
+ * it with one COPY in one transaction: the busier the queue, the larger the groups and the fewer the commits. A batch
+ * that does not fit into the queue is refused with {@link TelemetryQueueFullException}, so clients back off while the
+ * database falls behind instead of the heap filling up.
+ * <p>
+ * A group that cannot be written is retried with exponential backoff, holding up the queue behind it, and dropped
+ * after {@value #MAX_ATTEMPTS} attempts. Readings still queued at shutdown get one attempt. Committed readings move
+ * their vehicles in {@link VehiclePositions}.
+ * <p>
+ * Publishes {@code fleet_telemetry_queued_readings}, {@code fleet_telemetry_written_total} and
+ * {@code fleet_telemetry_dropped_total}, the {@code fleet_telemetry_group_size} of each commit, and the
+ * {@code fleet_telemetry_lag_seconds} of every reading when it commits: {@code stage="pipeline"} since it was
+ * accepted, {@code stage="end-to-end"} since it was recorded on the vehicle.
+ */
+@Slf4j
+@Component
+public class TelemetryWriter implements AutoCloseable {
+
+    static final int MAX_ATTEMPTS = 10;
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final TelemetryRepository telemetryRepository;
+    private final VehiclePositions vehiclePositions;
+    private final int queueCapacity;
+    private final int maxGroupSize;
+    private final Semaphore capacity;
+    private final BlockingQueue<List<TelemetryReading>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final DistributionSummary groupSize;
+    private final Timer pipelineLag;
+    private final Timer endToEndLag;
+
+    public TelemetryWriter(
+            TelemetryRepository telemetryRepository,
+            VehiclePositions vehiclePositions,
+            MeterRegistry registry,
+            @Value("${fleet.telemetry.queue-capacity:100000}") int queueCapacity,
+            @Value("${fleet.telemetry.max-group-size:10000}") int maxGroupSize
+    ) {
+        this.telemetryRepository = telemetryRepository;
+        this.vehiclePositions = vehiclePositions;
+        this.queueCapacity = queueCapacity;
+        this.maxGroupSize = maxGroupSize;
+        this.capacity = new Semaphore(queueCapacity);
+        this.writer = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name("telemetry-writer")
+                .daemon()
+                .factory());
+
+        Gauge.builder("fleet.telemetry.queued.readings", capacity, permits -> queueCapacity - permits.availablePermits())
+                .description("Accepted readings not yet written")
+                .register(registry);
+        FunctionCounter.builder("fleet.telemetry.written", written, AtomicLong::get)
+                .description("Readings written to the database")
+                .register(registry);
+        FunctionCounter.builder("fleet.telemetry.dropped", dropped, AtomicLong::get)
+                .description("Accepted readings dropped because they could not be written")
+                .register(registry);
+        this.groupSize = DistributionSummary.builder("fleet.telemetry.group.size")
+                .description("Readings written per commit")
+                .baseUnit("readings")
+                .register(registry);
+        this.pipelineLag = lagTimer(registry, "pipeline", "From accepting a reading to committing it");
+        this.endToEndLag = lagTimer(registry, "end-to-end", "From recording a reading on the vehicle to committing it");
+    }
+
+    @PostConstruct
+    void start() {
+        writer.execute(this::run);
+    }
+
+    /**
+     * Queues the readings to be written together.
+     *
+     * @throws TelemetryQueueFullException if they do not fit into the queue
+     */
+    public void enqueue(List<TelemetryReading> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        if (readings.size() > queueCapacity || !capacity.tryAcquire(readings.size())) {
+            throw new TelemetryQueueFullException("Telemetry queue is full, retry later");
+        }
+        queue.add(readings);
+    }
+
+    @Override
+    public void close() {
+        writer.shutdownNow();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Telemetry writer did not stop within {}", SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<TelemetryReading> group = new ArrayList<>(maxGroupSize);
+        try {
+            while (true) {
+                group.addAll(queue.take());
+                drainInto(group);
+                write(group, MAX_ATTEMPTS);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            // shutting down: what is still queued, or was being retried, gets one more attempt
+            Thread.interrupted();
+            drainInto(group);
+            while (!group.isEmpty()) {
+                writeOnce(group);
+                group.clear();
+                drainInto(group);
+            }
+        }
+    }
+
+    /**
+     * Adds whole batches from the queue while they fit into the group; a batch larger than a group goes alone.
+     */
+    private void drainInto(List<TelemetryReading> group) {
+        List<TelemetryReading> next;
+        while ((next = queue.peek()) != null && (group.isEmpty() || group.size() + next.size() <= maxGroupSize)) {
+            group.addAll(queue.poll());
+        }
+    }
+
+    private void write(List<TelemetryReading> group, int attempts) throws InterruptedException {
+        Duration backoff = INITIAL_BACKOFF;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                telemetryRepository.copy(group);
+                committed(group);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == attempts) {
+                    drop(group, e);
+                    return;
+                }
+                log.warn("Writing {} telemetry readings failed, retrying in {}", group.size(), backoff, e);
+                Thread.sleep(backoff);
+                Duration doubled = backoff.multipliedBy(2);
+                backoff = doubled.compareTo(MAX_BACKOFF) < 0 ? doubled : MAX_BACKOFF;
+            }
+        }
+    }
+
+    private void writeOnce(List<TelemetryReading> group) {
+        try {
+            telemetryRepository.copy(group);
+            committed(group);
+        } catch (RuntimeException e) {
+            drop(group, e);
+        }
+    }
+
+    private void committed(List<TelemetryReading> group) {
+        long nanos = System.nanoTime();
+        long epochMillis = Instant.now().toEpochMilli();
+        for (TelemetryReading reading : group) {
+            pipelineLag.record(nanos - reading.receivedNanos(), TimeUnit.NANOSECONDS);
+            // a vehicle clock running ahead would make this negative
+            endToEndLag.record(Math.max(0, epochMillis - reading.recordedAt().toEpochMilli()), TimeUnit.MILLISECONDS);
+        }
+        written.addAndGet(group.size());
+        groupSize.record(group.size());
+        capacity.release(group.size());
+        vehiclePositions.record(group);
+    }
+
+    private void drop(List<TelemetryReading> group, RuntimeException e) {
+        log.error("Dropping {} telemetry readings that could not be written", group.size(), e);
+        dropped.addAndGet(group.size());
+        capacity.release(group.size());
+    }
+
+    private static Timer lagTimer(MeterRegistry registry, String stage, String description) {
+        return Timer.builder("fleet.telemetry.lag")
+                .description(description)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry);
+    }
+}
@@ -1,9 +1,20 @@
 package com.msitek.fleet.fleetservice.vehicle.api;
 
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleBatchRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleAggregatesResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleChangesResponse;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleBatchResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleImportResponse;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleAggregates;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleChangesService;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleExportService;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleFileFormat;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleImportService;
 import com.msitek.fleet.fleetservice.vehicle.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,13 +22,22 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -27,6 +47,10 @@ import java.util.UUID;
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final VehicleExportService vehicleExportService;
+    private final VehicleImportService vehicleImportService;
+    private final VehicleAggregates vehicleAggregates;
+    private final VehicleChangesService vehicleChangesService;
 
     @Operation(summary = "Create new vehicle", description = "Adds a new vehicle to the fleet")
     @ApiResponses({
@@ -39,42 +63,180 @@ public class VehicleController {
         return vehicleService.create(request);
     }
 
-    @Operation(summary = "List vehicles", description = "Returns paginated list of vehicles with optional search query")
-    @ApiResponse(responseCode = "200", description = "Vehicles retrieved successfully")
+    @Operation(
+            summary = "Create vehicles in batch",
+            description = "Adds up to 1000 vehicles in one request. Entries whose VIN or plate number already exists, "
+                    + "or repeats an earlier entry of the batch, are reported as conflicts; all others are created."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Validation error", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Batch collided with a concurrent write, nothing was created",
+                    content = @Content)
+    })
+    @PostMapping("/batch")
+    public VehicleBatchResponse createBatch(@Valid @RequestBody CreateVehicleBatchRequest request) {
+        return vehicleService.createBatch(request.vehicles());
+    }
+
+    @Operation(
+            summary = "List vehicles",
+            description = "Returns paginated list of vehicles with optional search query. "
+                    + "Passing `cursor` (empty for the first page) switches to cursor pagination: "
+                    + "the response carries `nextCursor` instead of page totals and every page costs the same. "
+                    + "With `fields`, only the listed columns are read from the database and returned."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Vehicles retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, unknown field or unsupported sort",
+                    content = @Content)
+    })
     @GetMapping
-    public PageResponse<VehicleResponse> list(
+    public ResponseEntity<PageResponse<VehicleResponse>> list(
             @Parameter(description = "Search query (plate number, VIN, brand, model)")
             @RequestParam(required = false) String q,
+            @Parameter(description = "Opaque cursor from the previous page's `nextCursor`; empty to start cursor pagination")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Comma-separated fields to return, e.g. `plateNumber,status`; "
+                    + "`id` and `version` are always included")
+            @RequestParam(required = false) String fields,
             @PageableDefault(size = 20) Pageable pageable
     ) {
-        return vehicleService.list(q, pageable);
+        Set<VehicleField> selected = VehicleField.parse(fields);
+        PageResponse<VehicleResponse> page = cursor != null
+                ? vehicleService.list(q, cursor, selected, pageable)
+                : vehicleService.list(q, selected, pageable);
+        return withETag(page, VehicleETags.of(page));
+    }
+
+    @Operation(
+            summary = "Export vehicles",
+            description = "Streams all vehicles matching the optional search query as NDJSON (one JSON object per line), "
+                    + "CSV or a CBOR sequence. Rows are written as they are read, so the export size is not limited by "
+                    + "server memory."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    @GetMapping("/export")
+    public void export(
+            @Parameter(description = "Search query (plate number, VIN, brand, model)")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Output format: ndjson, csv or cbor")
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        VehicleFileFormat exportFormat = VehicleFileFormat.parse(format);
+
+        response.setContentType(exportFormat.mediaType().toString());
+        if (exportFormat != VehicleFileFormat.CBOR) {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("vehicles." + exportFormat.name().toLowerCase())
+                .build()
+                .toString());
+
+        vehicleExportService.export(q, exportFormat, response.getOutputStream());
+    }
+
+    @Operation(
+            summary = "Import vehicles",
+            description = "Upserts vehicles by VIN from a CSV (with a header row) or NDJSON request body. "
+                    + "Valid rows are loaded in one transaction; invalid rows, rows superseded by a later row "
+                    + "for the same VIN or plate, and rows claiming another vehicle's plate are rejected and reported."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import processed, see counts and rejections"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type or missing CSV columns",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Import collided with a concurrent write, nothing was imported",
+                    content = @Content)
+    })
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public VehicleImportResponse importVehicles(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request
+    ) throws IOException {
+        return vehicleImportService.importVehicles(request.getInputStream(), VehicleFileFormat.of(contentType));
+    }
+
+    @Operation(
+            summary = "Get fleet composition",
+            description = "Returns the number of vehicles in total, per status, per brand and per model year. "
+                    + "Served from counters kept up to date by every write, so the cost does not grow with the fleet."
+    )
+    @ApiResponse(responseCode = "200", description = "Aggregates retrieved successfully")
+    @GetMapping("/aggregates")
+    public VehicleAggregatesResponse aggregates() {
+        return vehicleAggregates.get();
+    }
+
+    @Operation(
+            summary = "Get vehicle changes",
+            description = "Returns vehicles created, updated or deleted since `since`, the `nextToken` of a previous "
+                    + "response; without it, every vehicle. Read on with `nextToken` while `hasMore` is set, then "
+                    + "keep it for the next sync. The cost depends on the number of changes, not on the fleet size."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid token or limit", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Token older than the tombstone retention, sync again "
+                    + "without a token", content = @Content)
+    })
+    @GetMapping("/changes")
+    public VehicleChangesResponse changes(
+            @Parameter(description = "`nextToken` of the previous response; omit for a full sync")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes, at most " + VehicleChangesService.MAX_LIMIT)
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return vehicleChangesService.changesSince(since, limit);
     }
 
     @Operation(summary = "Get vehicle by ID", description = "Returns vehicle details by its UUID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Vehicle found"),
-            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content)
+            @ApiResponse(responseCode = "304", description = "Vehicle unchanged since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
     })
     @GetMapping("/{id}")
-    public VehicleResponse getById(
+    public ResponseEntity<VehicleResponse> getById(
             @Parameter(description = "Vehicle UUID", required = true)
-            @PathVariable UUID id) {
-        return vehicleService.getById(id);
+            @PathVariable UUID id,
+            @Parameter(description = "Comma-separated fields to return, e.g. `plateNumber,status`; "
+                    + "`id` and `version` are always included")
+            @RequestParam(required = false) String fields
+    ) {
+        VehicleResponse vehicle = vehicleService.getById(id);
+        return withETag(vehicle.only(VehicleField.parse(fields)), VehicleETags.of(vehicle));
     }
 
-    @Operation(summary = "Update vehicle", description = "Updates vehicle data by ID")
+    @Operation(
+            summary = "Update vehicle",
+            description = "Updates vehicle data by ID. With `If-Match` set to the vehicle's ETag, the update only "
+                    + "succeeds if nobody changed the vehicle in the meantime."
+    )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Vehicle updated successfully"),
             @ApiResponse(responseCode = "400", description = "Validation error", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "VIN or plate number belongs to another vehicle", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Vehicle changed since the ETag in If-Match", content = @Content)
     })
     @PutMapping("/{id}")
-    public VehicleResponse update(
+    public ResponseEntity<VehicleResponse> update(
             @Parameter(description = "Vehicle UUID", required = true)
             @PathVariable UUID id,
+            @Parameter(description = "ETag of the vehicle version this update is based on")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateVehicleRequest request
     ) {
-        return vehicleService.update(id, request);
+        VehicleResponse vehicle = vehicleService.update(id, request, VehicleETags.versionFromIfMatch(id, ifMatch));
+        return withETag(vehicle, VehicleETags.of(vehicle));
     }
 
     @Operation(summary = "Delete vehicle", description = "Removes vehicle from the fleet")
@@ -93,24 +255,51 @@ public class VehicleController {
     @Operation(summary = "Get vehicle by VIN", description = "Returns vehicle details by VIN number")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Vehicle found"),
-            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content)
+            @ApiResponse(responseCode = "304", description = "Vehicle unchanged since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
     })
     @GetMapping("/by-vin/{vin}")
-    public VehicleResponse getByVin(
+    public ResponseEntity<VehicleResponse> getByVin(
             @Parameter(description = "Vehicle VIN (17 characters)", required = true)
-            @PathVariable String vin) {
-        return vehicleService.getByVin(vin);
+            @PathVariable String vin,
+            @Parameter(description = "Comma-separated fields to return, e.g. `plateNumber,status`; "
+                    + "`id` and `version` are always included")
+            @RequestParam(required = false) String fields
+    ) {
+        VehicleResponse vehicle = vehicleService.getByVin(vin);
+        return withETag(vehicle.only(VehicleField.parse(fields)), VehicleETags.of(vehicle));
     }
 
     @Operation(summary = "Get vehicle by plate number", description = "Returns vehicle details by plate number")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Vehicle found"),
-            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content)
+            @ApiResponse(responseCode = "304", description = "Vehicle unchanged since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Vehicle not found", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field", content = @Content)
     })
     @GetMapping("/by-plate/{plateNumber}")
-    public VehicleResponse getByPlate(
+    public ResponseEntity<VehicleResponse> getByPlate(
             @Parameter(description = "Vehicle plate number", required = true)
-            @PathVariable String plateNumber) {
-        return vehicleService.getByPlateNumber(plateNumber);
+            @PathVariable String plateNumber,
+            @Parameter(description = "Comma-separated fields to return, e.g. `plateNumber,status`; "
+                    + "`id` and `version` are always included")
+            @RequestParam(required = false) String fields
+    ) {
+        VehicleResponse vehicle = vehicleService.getByPlateNumber(plateNumber);
+        return withETag(vehicle.only(VehicleField.parse(fields)), VehicleETags.of(vehicle));
+    }
+
+    /**
+     * Tags a response with its ETag. On GET, Spring answers a matching {@code If-None-Match} with 304 before
+     * the body is serialized. The ETag is weak, as it is the same for the JSON, CBOR and Smile encodings, and
+     * caches must also key on {@code Accept}.
+     */
+    private static <T> ResponseEntity<T> withETag(T body, String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(VehicleETags.REVALIDATE)
+                .body(body);
     }
 }
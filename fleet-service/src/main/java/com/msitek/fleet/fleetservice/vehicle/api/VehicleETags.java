@@ -0,0 +1,66 @@
+package com.msitek.fleet.fleetservice.vehicle.api;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehiclePreconditionFailedException;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * ETags of vehicle representations, derived from row versions so they are known before the body is serialized.
+ * A single vehicle's ETag is its id and version; a page's ETag is a digest of the ids and versions it contains.
+ * Both are weak, as the JSON, CBOR and Smile encodings of the same version share them.
+ */
+final class VehicleETags {
+
+    /**
+     * Responses may be stored by the client but must be revalidated, which is what makes If-None-Match pay off.
+     * Without an explicit Cache-Control, Spring Security would send {@code no-store}.
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private VehicleETags() {
+    }
+
+    static String of(VehicleResponse vehicle) {
+        return "W/\"" + vehicle.id() + "." + vehicle.version() + "\"";
+    }
+
+    static String of(PageResponse<VehicleResponse> page) {
+        StringBuilder key = new StringBuilder(page.content().size() * 40 + 32)
+                .append(page.page()).append('/')
+                .append(page.size()).append('/')
+                .append(page.totalElements()).append('/')
+                .append(page.nextCursor());
+        for (VehicleResponse vehicle : page.content()) {
+            key.append('|').append(vehicle.id()).append(':').append(vehicle.version());
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Version named by an {@code If-Match} header, {@code null} if the header is absent or {@code *}.
+     * A tag of another vehicle or a malformed tag can never match and fails the precondition.
+     */
+    static Long versionFromIfMatch(UUID id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        String prefix = "\"" + id + ".";
+        if (tag.length() > prefix.length() + 1 && tag.startsWith(prefix) && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+        }
+        throw new VehiclePreconditionFailedException("If-Match does not name a current vehicle version: " + ifMatch);
+    }
+}
@@ -0,0 +1,14 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateVehicleBatchRequest(
+
+        @NotEmpty
+        @Size(max = 1000)
+        List<@Valid CreateVehicleRequest> vehicles
+) {}
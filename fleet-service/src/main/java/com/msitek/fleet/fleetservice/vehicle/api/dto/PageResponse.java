@@ -1,11 +1,28 @@
 package com.msitek.fleet.fleetservice.vehicle.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+/**
+ * One page of results. Offset pages carry {@code page}, {@code totalElements} and {@code totalPages};
+ * cursor pages carry {@code nextCursor} instead, since counting the whole result would defeat the seek.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PageResponse<T>(
         List<T> content,
-        int page,
+        Integer page,
         int size,
-        long totalElements,
-        int totalPages
-) {}
+        Long totalElements,
+        Integer totalPages,
+        String nextCursor
+) {
+
+    public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages) {
+        this(content, page, size, totalElements, totalPages, null);
+    }
+
+    public PageResponse(List<T> content, int size, String nextCursor) {
+        this(content, null, size, null, null, nextCursor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Fleet composition. {@code byStatus} lists every status, {@code byBrand} and {@code byYear} only those with
+ * vehicles. {@code reconciledAt} is when the counts were last recomputed from the database.
+ */
+public record VehicleAggregatesResponse(
+        long total,
+        Map<VehicleStatus, Long> byStatus,
+        Map<String, Long> byBrand,
+        Map<Integer, Long> byYear,
+        LocalDateTime reconciledAt
+) {}
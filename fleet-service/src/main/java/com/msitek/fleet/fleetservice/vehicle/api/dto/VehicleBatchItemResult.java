@@ -0,0 +1,28 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import java.util.UUID;
+
+/**
+ * Outcome for one entry of a batch request; {@code index} is its position in the request.
+ * {@code id} is set for created vehicles, {@code message} explains a conflict.
+ */
+public record VehicleBatchItemResult(
+        int index,
+        Status status,
+        UUID id,
+        String message
+) {
+
+    public enum Status {
+        CREATED,
+        CONFLICT
+    }
+
+    public static VehicleBatchItemResult created(int index, UUID id) {
+        return new VehicleBatchItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static VehicleBatchItemResult conflict(int index, String message) {
+        return new VehicleBatchItemResult(index, Status.CONFLICT, null, message);
+    }
+}
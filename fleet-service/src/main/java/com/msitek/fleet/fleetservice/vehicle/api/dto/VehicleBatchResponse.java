@@ -0,0 +1,9 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import java.util.List;
+
+public record VehicleBatchResponse(
+        int created,
+        int conflicts,
+        List<VehicleBatchItemResult> items
+) {}
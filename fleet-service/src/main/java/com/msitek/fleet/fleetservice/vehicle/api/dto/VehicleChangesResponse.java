@@ -0,0 +1,23 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Vehicles created or updated and vehicles deleted since the requested token. A vehicle may be repeated in a
+ * later response; its {@code version} tells which copy is newer. Pass {@code nextToken} as {@code since} to read
+ * on, right away while {@code hasMore} is set, or at the next sync otherwise.
+ */
+public record VehicleChangesResponse(
+        List<VehicleResponse> vehicles,
+        List<Deletion> deleted,
+        String nextToken,
+        boolean hasMore
+) {
+
+    public record Deletion(
+            UUID id,
+            LocalDateTime deletedAt
+    ) {}
+}
@@ -0,0 +1,20 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code rejections} lists at most the first 100 rejected lines.
+ */
+public record VehicleImportResponse(
+        long inserted,
+        long updated,
+        long unchanged,
+        long rejected,
+        List<Rejection> rejections
+) {
+
+    public record Rejection(
+            long line,
+            String reason
+    ) {}
+}
@@ -1,18 +1,49 @@
 package com.msitek.fleet.fleetservice.vehicle.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
 import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * A vehicle, or with {@code fields=} only some of its fields: unselected fields are {@code null} and left out
+ * of the body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record VehicleResponse(
         UUID id,
         String plateNumber,
         String vin,
         String brand,
         String model,
-        int year,
+        Integer year,
         VehicleStatus status,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
-) {}
+        LocalDateTime updatedAt,
+        Long version
+) {
+
+    /**
+     * This vehicle with every field outside {@code fields} cleared.
+     */
+    public VehicleResponse only(Set<VehicleField> fields) {
+        if (fields.containsAll(VehicleField.ALL)) {
+            return this;
+        }
+        return new VehicleResponse(
+                fields.contains(VehicleField.ID) ? id : null,
+                fields.contains(VehicleField.PLATE_NUMBER) ? plateNumber : null,
+                fields.contains(VehicleField.VIN) ? vin : null,
+                fields.contains(VehicleField.BRAND) ? brand : null,
+                fields.contains(VehicleField.MODEL) ? model : null,
+                fields.contains(VehicleField.YEAR) ? year : null,
+                fields.contains(VehicleField.STATUS) ? status : null,
+                fields.contains(VehicleField.CREATED_AT) ? createdAt : null,
+                fields.contains(VehicleField.UPDATED_AT) ? updatedAt : null,
+                fields.contains(VehicleField.VERSION) ? version : null
+        );
+    }
+}
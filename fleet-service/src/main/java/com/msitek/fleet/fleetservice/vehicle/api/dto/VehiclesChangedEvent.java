@@ -0,0 +1,10 @@
+package com.msitek.fleet.fleetservice.vehicle.api.dto;
+
+/**
+ * Payload of the {@code vehicles-changed} event, sent instead of one event per vehicle for batch creates and imports.
+ */
+public record VehiclesChangedEvent(
+        long created,
+        long updated
+) {
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -52,4 +53,20 @@ public class Vehicle {
 
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
+
+    /**
+     * Incremented on every write and served as the vehicle's ETag. {@code null} until the vehicle is first
+     * persisted, which is also how Spring Data tells new vehicles (persist) from detached ones (merge)
+     * despite the assigned id.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Lower-cased plate number, VIN, brand and model, generated by the database (see V3 migration)
+     * and backed by a trigram index. Only used as a search predicate.
+     */
+    @Column(name = "search_text", insertable = false, updatable = false)
+    private String searchText;
 }
@@ -0,0 +1,61 @@
+package com.msitek.fleet.fleetservice.vehicle.domain;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of a vehicle representation that can be selected with {@code fields=}. Each field is named like its
+ * JSON property and {@link Vehicle} attribute.
+ */
+public enum VehicleField {
+
+    ID("id"),
+    PLATE_NUMBER("plateNumber"),
+    VIN("vin"),
+    BRAND("brand"),
+    MODEL("model"),
+    YEAR("year"),
+    STATUS("status"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    VERSION("version");
+
+    public static final Set<VehicleField> ALL = Collections.unmodifiableSet(EnumSet.allOf(VehicleField.class));
+
+    private final String attribute;
+
+    VehicleField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+
+    public static VehicleField of(String attribute) {
+        for (VehicleField field : values()) {
+            if (field.attribute.equals(attribute)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown vehicle field: " + attribute);
+    }
+
+    /**
+     * Parses a comma-separated {@code fields=} value. {@code id} and {@code version} are always included, since
+     * they identify the representation and back its ETag; an absent or blank value selects every field.
+     */
+    public static Set<VehicleField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        EnumSet<VehicleField> selected = EnumSet.of(ID, VERSION);
+        for (String attribute : fields.split(",")) {
+            if (!attribute.isBlank()) {
+                selected.add(of(attribute.trim()));
+            }
+        }
+        return selected.size() == ALL.size() ? ALL : Collections.unmodifiableSet(selected);
+    }
+}
@@ -0,0 +1,7 @@
+package com.msitek.fleet.fleetservice.vehicle.exception;
+
+public class VehicleChangesExpiredException extends RuntimeException {
+    public VehicleChangesExpiredException(String message) {
+        super(message);
+    }
+}
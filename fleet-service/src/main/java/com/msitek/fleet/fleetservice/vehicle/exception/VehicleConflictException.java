@@ -1,7 +1,22 @@
 package com.msitek.fleet.fleetservice.vehicle.exception;
 
 public class VehicleConflictException extends RuntimeException {
+
+    private final String field;
+
     public VehicleConflictException(String message) {
+        this(message, null);
+    }
+
+    public VehicleConflictException(String message, String field) {
         super(message);
+        this.field = field;
+    }
+
+    /**
+     * Request field holding the conflicting value, or {@code null} if the conflict is not about a single field.
+     */
+    public String getField() {
+        return field;
     }
 }
@@ -0,0 +1,7 @@
+package com.msitek.fleet.fleetservice.vehicle.exception;
+
+public class VehiclePreconditionFailedException extends RuntimeException {
+    public VehiclePreconditionFailedException(String message) {
+        super(message);
+    }
+}
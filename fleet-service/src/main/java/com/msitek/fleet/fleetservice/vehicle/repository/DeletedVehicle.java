@@ -0,0 +1,15 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+/**
+ * Outcome of {@link VehicleRepositoryCustom#deleteReturning}: the VIN and plate number the deleted vehicle had, so
+ * lookups by them can be evicted, and its brand, year and status, so the fleet aggregates can drop it.
+ */
+public record DeletedVehicle(
+        String vin,
+        String plateNumber,
+        String brand,
+        int year,
+        VehicleStatus status
+) {}
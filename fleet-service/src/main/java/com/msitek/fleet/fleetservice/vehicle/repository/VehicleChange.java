@@ -0,0 +1,15 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entry of the change feed, see {@link VehicleRepositoryCustom#findChanges}: a vehicle as it is now, or the
+ * tombstone of a deleted one, with the id of the transaction that last wrote it.
+ *
+ * @param vehicle   the current row, {@code null} for a deletion
+ * @param deletedAt when the vehicle was deleted, {@code null} unless it was
+ */
+public record VehicleChange(long changeXid, UUID id, VehicleResponse vehicle, LocalDateTime deletedAt) {}
@@ -0,0 +1,9 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+/**
+ * Bounds of the change feed, see {@link VehicleRepositoryCustom#findChangeHorizon()}.
+ *
+ * @param snapshotXmin               every transaction below this id has ended and its changes are visible
+ * @param tombstonesCompactedThrough highest transaction id whose tombstones may have been compacted away
+ */
+public record VehicleChangeHorizon(long snapshotXmin, long tombstonesCompactedThrough) {}
@@ -0,0 +1,9 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+/**
+ * Row of {@link VehicleRepositoryCustom#countByStatusBrandAndYear()}: the number of vehicles with one status, one
+ * brand or one year, whichever is set, or of all vehicles if none is.
+ */
+public record VehicleGroupCount(VehicleStatus status, String brand, Integer year, long count) {}
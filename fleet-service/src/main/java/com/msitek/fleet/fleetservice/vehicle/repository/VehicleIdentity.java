@@ -0,0 +1,13 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection of the keys a vehicle is addressed by, used to resolve many vehicles in one query.
+ */
+public interface VehicleIdentity {
+
+    UUID getId();
+
+    String getVin();
+}
@@ -0,0 +1,11 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+/**
+ * Projection of the unique business keys of a vehicle, used for set-based conflict checks.
+ */
+public interface VehicleNaturalKeys {
+
+    String getVin();
+
+    String getPlateNumber();
+}
@@ -1,32 +1,83 @@
 package com.msitek.fleet.fleetservice.vehicle.repository;
 
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
 import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface VehicleRepository extends JpaRepository<Vehicle, UUID> {
+/**
+ * Reads return DTOs rather than managed entities wherever the caller only serializes the result. The single-vehicle
+ * lookups run in their own read-only transactions, so with a replica configured they are served by it.
+ */
+public interface VehicleRepository extends JpaRepository<Vehicle, UUID>, VehicleRepositoryCustom {
 
-    boolean existsByVin(String vin);
-    boolean existsByPlateNumber(String plateNumber);
+    @Query("""
+       select new com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse(
+           v.id, v.plateNumber, v.vin, v.brand, v.model, v.year, v.status, v.createdAt, v.updatedAt, v.version)
+       from Vehicle v
+       where v.id = :id
+       """)
+    @Transactional(readOnly = true)
+    Optional<VehicleResponse> findResponseById(@Param("id") UUID id);
+
+    @Query("""
+       select new com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse(
+           v.id, v.plateNumber, v.vin, v.brand, v.model, v.year, v.status, v.createdAt, v.updatedAt, v.version)
+       from Vehicle v
+       where v.vin = :vin
+       """)
+    @Transactional(readOnly = true)
+    Optional<VehicleResponse> findResponseByVin(@Param("vin") String vin);
+
+    @Query("""
+       select new com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse(
+           v.id, v.plateNumber, v.vin, v.brand, v.model, v.year, v.status, v.createdAt, v.updatedAt, v.version)
+       from Vehicle v
+       where v.plateNumber = :plateNumber
+       """)
+    @Transactional(readOnly = true)
+    Optional<VehicleResponse> findResponseByPlateNumber(@Param("plateNumber") String plateNumber);
+
+    /**
+     * Streams every vehicle as a DTO rather than a managed entity, so the persistence context stays empty.
+     * Must be consumed inside a transaction, otherwise the driver ignores the fetch size and buffers the whole result.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+       select new com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse(
+           v.id, v.plateNumber, v.vin, v.brand, v.model, v.year, v.status, v.createdAt, v.updatedAt, v.version)
+       from Vehicle v
+       """)
+    Stream<VehicleResponse> streamAll();
 
+    /**
+     * Same as {@link #streamAll()}, filtered like {@link #findPage(String, java.util.Set, org.springframework.data.domain.Pageable)}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
     @Query("""
-       select v from Vehicle v
-       where lower(v.plateNumber) like concat('%', :q, '%')
-          or lower(v.vin) like concat('%', :q, '%')
-          or lower(v.brand) like concat('%', :q, '%')
-          or lower(v.model) like concat('%', :q, '%')
+       select new com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse(
+           v.id, v.plateNumber, v.vin, v.brand, v.model, v.year, v.status, v.createdAt, v.updatedAt, v.version)
+       from Vehicle v
+       where v.searchText like concat('%', :q, '%')
        """)
-    Page<Vehicle> search(@Param("q") String q, Pageable pageable);
+    Stream<VehicleResponse> streamSearch(@Param("q") String q);
+
+    List<VehicleNaturalKeys> findByVinInOrPlateNumberIn(Collection<String> vins, Collection<String> plateNumbers);
 
-    boolean existsByVinAndIdNot(String vin, java.util.UUID id);
-    boolean existsByPlateNumberAndIdNot(String plateNumber, java.util.UUID id);
+    @Transactional(readOnly = true)
+    List<VehicleIdentity> findIdentitiesByIdIn(Collection<UUID> ids);
 
-    Optional<Vehicle> findByVin(String vin);
-    Optional<Vehicle> findByPlateNumber(String plateNumber);
+    @Transactional(readOnly = true)
+    List<VehicleIdentity> findIdentitiesByVinIn(Collection<String> vins);
 }
@@ -0,0 +1,95 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface VehicleRepositoryCustom {
+
+    /**
+     * Offset page of vehicles, selecting only the columns of {@code fields}. Rows are read as tuples straight into
+     * DTOs, so nothing enters the persistence context.
+     *
+     * @param q        lower-cased search term, or {@code null} for no filter
+     * @param fields   fields to load; the others are {@code null} in the result
+     * @param pageable page and sort, which may only refer to {@link VehicleField}s
+     */
+    Page<VehicleResponse> findPage(String q, Set<VehicleField> fields, Pageable pageable);
+
+    /**
+     * Keyset slice ordered by {@code (createdAt, id)}. Rows strictly after the given position are
+     * returned, so the cost does not depend on how deep the slice is. Selects columns like
+     * {@link #findPage(String, Set, Pageable)}.
+     *
+     * @param q              lower-cased search term, or {@code null} for no filter
+     * @param afterCreatedAt createdAt of the last row of the previous slice, or {@code null} for the first slice
+     * @param afterId        id of the last row of the previous slice, or {@code null} for the first slice
+     * @param descending     sort direction
+     * @param limit          maximum number of rows
+     * @param fields         fields to load; the others are {@code null} in the result
+     */
+    List<VehicleResponse> findSlice(
+            String q,
+            LocalDateTime afterCreatedAt,
+            UUID afterId,
+            boolean descending,
+            int limit,
+            Set<VehicleField> fields
+    );
+
+    /**
+     * Inserts new vehicles with {@code persist} (no merge, so no SELECT per row) and flushes once, letting
+     * Hibernate group the INSERTs into JDBC batches of {@code hibernate.jdbc.batch_size}.
+     */
+    void insertAll(List<Vehicle> vehicles);
+
+    /**
+     * Overwrites the mutable fields of {@code changes} (matched by id) and increments the version, in a single
+     * UPDATE statement that also returns the row as written and its previous values.
+     *
+     * @param changes         id and new field values; {@code updatedAt} is taken from it as well
+     * @param expectedVersion only update if the row still has this version, or {@code null} for any version
+     * @return empty if no row with that id (and version) exists
+     */
+    Optional<VehicleUpdateResult> update(Vehicle changes, Long expectedVersion);
+
+    /**
+     * Deletes a vehicle in a single DELETE statement that returns the values the deleted row had, whatever version
+     * it was at.
+     *
+     * @return empty if no row with that id exists
+     */
+    Optional<DeletedVehicle> deleteReturning(UUID id);
+
+    /**
+     * Vehicle counts per status, per brand and per year, plus the total, in a single GROUP BY GROUPING SETS scan.
+     */
+    List<VehicleGroupCount> countByStatusBrandAndYear();
+
+    /**
+     * The current snapshot's xmin and the tombstone compaction horizon, both as transaction ids.
+     */
+    VehicleChangeHorizon findChangeHorizon();
+
+    /**
+     * Vehicles and tombstones in {@code (changeXid, id)} order, strictly after the given position. Both are read
+     * through seek indexes, so the cost depends on {@code limit} and not on the size of the fleet.
+     */
+    List<VehicleChange> findChanges(long afterXid, UUID afterId, int limit);
+
+    /**
+     * Deletes the tombstones of vehicles deleted before {@code deletedBefore} and raises the compaction horizon to
+     * the highest transaction id among them.
+     *
+     * @return the number of tombstones deleted
+     */
+    int compactTombstones(LocalDateTime deletedBefore);
+}
@@ -0,0 +1,309 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+class VehicleRepositoryImpl implements VehicleRepositoryCustom {
+
+    // The CTE locks the row and reads its latest committed version for the previous values; a plain self-join would
+    // return the version of the statement's snapshot, stale if a concurrent update committed while this one waited.
+    private static final String UPDATE_VEHICLE = """
+            WITH previous AS (
+                SELECT id, vin, plate_number, brand, year, status FROM vehicles WHERE id = ? FOR UPDATE
+            )
+            UPDATE vehicles v
+            SET plate_number = ?, vin = ?, brand = ?, model = ?, year = ?, status = ?, updated_at = ?,
+                version = v.version + 1
+            FROM previous
+            WHERE v.id = previous.id
+            """;
+
+    private static final String RETURNING = """
+            RETURNING v.id, v.plate_number, v.vin, v.brand, v.model, v.year, v.status, v.created_at, v.updated_at,
+                v.version, previous.vin AS previous_vin, previous.plate_number AS previous_plate_number,
+                previous.brand AS previous_brand, previous.year AS previous_year, previous.status AS previous_status
+            """;
+
+    private static final String DELETE_VEHICLE = """
+            DELETE FROM vehicles WHERE id = ? RETURNING vin, plate_number, brand, year, status
+            """;
+
+    // One scan for all three breakdowns and the total; the grouping columns are NOT NULL, so NULL marks the others
+    private static final String COUNT_BY_STATUS_BRAND_AND_YEAR = """
+            SELECT status, brand, year, count(*)
+            FROM vehicles
+            GROUP BY GROUPING SETS ((status), (brand), (year), ())
+            """;
+
+    private static final String FIND_CHANGE_HORIZON = """
+            SELECT pg_snapshot_xmin(pg_current_snapshot())::text AS snapshot_xmin,
+                tombstones_compacted_through::text AS tombstones_compacted_through
+            FROM vehicle_change_horizon
+            """;
+
+    // xid8 has no JDBC type, so transaction ids travel as text. Limiting each branch lets both be read through
+    // their seek index and merged, rather than sorting every later row; the qualified ORDER BY sorts by xid8.
+    private static final String FIND_CHANGES = """
+            SELECT changes.change_xid::text AS change_xid, id, plate_number, vin, brand, model, year, status,
+                created_at, updated_at, version, deleted_at
+            FROM (
+                (SELECT change_xid, id, plate_number, vin, brand, model, year, status, created_at, updated_at,
+                    version, NULL::timestamp AS deleted_at
+                FROM vehicles
+                WHERE (change_xid, id) > (CAST(? AS xid8), ?)
+                ORDER BY change_xid, id
+                LIMIT ?)
+                UNION ALL
+                (SELECT change_xid, id, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, deleted_at
+                FROM vehicle_tombstones
+                WHERE (change_xid, id) > (CAST(? AS xid8), ?)
+                ORDER BY change_xid, id
+                LIMIT ?)
+            ) changes
+            ORDER BY changes.change_xid, changes.id
+            LIMIT ?
+            """;
+
+    private static final String COMPACT_TOMBSTONES = """
+            WITH compacted AS (
+                DELETE FROM vehicle_tombstones WHERE deleted_at < ? RETURNING change_xid
+            )
+            UPDATE vehicle_change_horizon
+            SET tombstones_compacted_through = greatest(tombstones_compacted_through, (SELECT max(change_xid) FROM compacted))
+            RETURNING (SELECT count(*) FROM compacted)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    VehicleRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<VehicleResponse> findPage(String q, Set<VehicleField> fields, Pageable pageable) {
+        String where = q != null ? " where v.searchText like concat('%', :q, '%')" : "";
+
+        StringBuilder jpql = new StringBuilder(select(fields)).append(where);
+        if (pageable.getSort().isSorted()) {
+            StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+            for (Sort.Order order : pageable.getSort()) {
+                // Only known attributes get into the query text
+                String attribute = VehicleField.of(order.getProperty()).attribute();
+                orderBy.add("v." + attribute + (order.isDescending() ? " desc" : " asc"));
+            }
+            jpql.append(orderBy);
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        if (q != null) {
+            query.setParameter("q", q);
+        }
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<VehicleResponse> content = query.getResultStream().map(row -> toResponse(row, fields)).toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("select count(v) from Vehicle v" + where, Long.class);
+            if (q != null) {
+                count.setParameter("q", q);
+            }
+            return count.getSingleResult();
+        });
+    }
+
+    @Override
+    public List<VehicleResponse> findSlice(
+            String q,
+            LocalDateTime afterCreatedAt,
+            UUID afterId,
+            boolean descending,
+            int limit,
+            Set<VehicleField> fields
+    ) {
+        List<String> conditions = new ArrayList<>();
+        if (q != null) {
+            conditions.add("v.searchText like concat('%', :q, '%')");
+        }
+        if (afterCreatedAt != null) {
+            // Row-value comparison, so Postgres turns it into a range on idx_vehicles_created_at_id
+            conditions.add(descending
+                    ? "(v.createdAt, v.id) < (:afterCreatedAt, :afterId)"
+                    : "(v.createdAt, v.id) > (:afterCreatedAt, :afterId)");
+        }
+
+        String direction = descending ? "desc" : "asc";
+        StringBuilder jpql = new StringBuilder(select(fields));
+        if (!conditions.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", conditions));
+        }
+        jpql.append(" order by v.createdAt ").append(direction).append(", v.id ").append(direction);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        if (q != null) {
+            query.setParameter("q", q);
+        }
+        if (afterCreatedAt != null) {
+            query.setParameter("afterCreatedAt", afterCreatedAt);
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultStream().map(row -> toResponse(row, fields)).toList();
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Vehicle> vehicles) {
+        for (Vehicle vehicle : vehicles) {
+            entityManager.persist(vehicle);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional
+    public Optional<VehicleUpdateResult> update(Vehicle changes, Long expectedVersion) {
+        List<Object> args = new ArrayList<>(List.of(
+                changes.getId(),
+                changes.getPlateNumber(),
+                changes.getVin(),
+                changes.getBrand(),
+                changes.getModel(),
+                changes.getYear(),
+                changes.getStatus().name(),
+                changes.getUpdatedAt()
+        ));
+        String sql = UPDATE_VEHICLE;
+        if (expectedVersion != null) {
+            sql += " AND v.version = ?\n";
+            args.add(expectedVersion);
+        }
+
+        return jdbcTemplate.query(sql + RETURNING, (rs, i) -> new VehicleUpdateResult(
+                new VehicleResponse(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("plate_number"),
+                        rs.getString("vin"),
+                        rs.getString("brand"),
+                        rs.getString("model"),
+                        rs.getInt("year"),
+                        VehicleStatus.valueOf(rs.getString("status")),
+                        rs.getObject("created_at", LocalDateTime.class),
+                        rs.getObject("updated_at", LocalDateTime.class),
+                        rs.getLong("version")
+                ),
+                rs.getString("previous_vin"),
+                rs.getString("previous_plate_number"),
+                rs.getString("previous_brand"),
+                rs.getInt("previous_year"),
+                VehicleStatus.valueOf(rs.getString("previous_status"))
+        ), args.toArray()).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public Optional<DeletedVehicle> deleteReturning(UUID id) {
+        return jdbcTemplate.query(DELETE_VEHICLE, (rs, i) -> new DeletedVehicle(
+                rs.getString("vin"),
+                rs.getString("plate_number"),
+                rs.getString("brand"),
+                rs.getInt("year"),
+                VehicleStatus.valueOf(rs.getString("status"))
+        ), id).stream().findFirst();
+    }
+
+    @Override
+    public List<VehicleGroupCount> countByStatusBrandAndYear() {
+        return jdbcTemplate.query(COUNT_BY_STATUS_BRAND_AND_YEAR, (rs, i) -> new VehicleGroupCount(
+                rs.getString("status") == null ? null : VehicleStatus.valueOf(rs.getString("status")),
+                rs.getString("brand"),
+                rs.getObject("year", Integer.class),
+                rs.getLong("count")
+        ));
+    }
+
+    @Override
+    public VehicleChangeHorizon findChangeHorizon() {
+        return jdbcTemplate.queryForObject(FIND_CHANGE_HORIZON, (rs, i) -> new VehicleChangeHorizon(
+                Long.parseLong(rs.getString("snapshot_xmin")),
+                Long.parseLong(rs.getString("tombstones_compacted_through"))
+        ));
+    }
+
+    @Override
+    public List<VehicleChange> findChanges(long afterXid, UUID afterId, int limit) {
+        String after = Long.toString(afterXid);
+        return jdbcTemplate.query(FIND_CHANGES, (rs, i) -> {
+            UUID id = rs.getObject("id", UUID.class);
+            LocalDateTime deletedAt = rs.getObject("deleted_at", LocalDateTime.class);
+            VehicleResponse vehicle = deletedAt != null ? null : new VehicleResponse(
+                    id,
+                    rs.getString("plate_number"),
+                    rs.getString("vin"),
+                    rs.getString("brand"),
+                    rs.getString("model"),
+                    rs.getInt("year"),
+                    VehicleStatus.valueOf(rs.getString("status")),
+                    rs.getObject("created_at", LocalDateTime.class),
+                    rs.getObject("updated_at", LocalDateTime.class),
+                    rs.getLong("version")
+            );
+            return new VehicleChange(Long.parseLong(rs.getString("change_xid")), id, vehicle, deletedAt);
+        }, after, afterId, limit, after, afterId, limit, limit);
+    }
+
+    @Override
+    public int compactTombstones(LocalDateTime deletedBefore) {
+        return jdbcTemplate.queryForObject(COMPACT_TOMBSTONES, Integer.class, deletedBefore);
+    }
+
+    private static String select(Set<VehicleField> fields) {
+        StringJoiner select = new StringJoiner(", ", "select ", " from Vehicle v");
+        for (VehicleField field : fields) {
+            select.add("v." + field.attribute() + " as " + field.attribute());
+        }
+        return select.toString();
+    }
+
+    private static VehicleResponse toResponse(Tuple row, Set<VehicleField> fields) {
+        return new VehicleResponse(
+                get(row, fields, VehicleField.ID, UUID.class),
+                get(row, fields, VehicleField.PLATE_NUMBER, String.class),
+                get(row, fields, VehicleField.VIN, String.class),
+                get(row, fields, VehicleField.BRAND, String.class),
+                get(row, fields, VehicleField.MODEL, String.class),
+                get(row, fields, VehicleField.YEAR, Integer.class),
+                get(row, fields, VehicleField.STATUS, VehicleStatus.class),
+                get(row, fields, VehicleField.CREATED_AT, LocalDateTime.class),
+                get(row, fields, VehicleField.UPDATED_AT, LocalDateTime.class),
+                get(row, fields, VehicleField.VERSION, Long.class)
+        );
+    }
+
+    private static <T> T get(Tuple row, Set<VehicleField> fields, VehicleField field, Class<T> type) {
+        return fields.contains(field) ? row.get(field.attribute(), type) : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.msitek.fleet.fleetservice.vehicle.repository;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+
+/**
+ * Outcome of {@link VehicleRepositoryCustom#update}: the vehicle as written, the VIN and plate number it had
+ * before, so stale lookups by the old keys can be evicted, and its previous brand, year and status, so the fleet
+ * aggregates can move it.
+ */
+public record VehicleUpdateResult(
+        VehicleResponse vehicle,
+        String previousVin,
+        String previousPlateNumber,
+        String previousBrand,
+        int previousYear,
+        VehicleStatus previousStatus
+) {}
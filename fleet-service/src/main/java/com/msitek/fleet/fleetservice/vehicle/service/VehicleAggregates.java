@@ -0,0 +1,260 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleAggregatesResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleGroupCount;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Vehicle counts per status, brand and year, held in memory so that reading them costs the same whatever the fleet
+ * size.
+ * <p>
+ * The counts are loaded with one GROUP BY at startup and then moved by the service's writes. {@link #added},
+ * {@link #removed} and {@link #changedInBulk()} collect the changes of the current transaction. After it commits,
+ * they are applied as one new immutable snapshot, and readers get the current snapshot as is.
+ * <p>
+ * Every {@code fleet.vehicle-aggregates.reconcile-interval} the counts are recomputed from the table, in case a write
+ * bypassed the service; corrections are logged and counted as {@code fleet_vehicle_aggregates_corrections_total}.
+ * A recount is only kept if no write was in flight while it ran, since it cannot tell whether such a write is
+ * included. It is retried a few times, then left to the next interval. Bulk writes, which are not tracked row by row,
+ * trigger a recount as soon as they commit.
+ */
+@Slf4j
+@Component
+public class VehicleAggregates implements MeterBinder {
+
+    private static final VehicleStatus[] STATUSES = VehicleStatus.values();
+    private static final int RECONCILE_ATTEMPTS = 5;
+    private static final long RECONCILE_RETRY_DELAY_MILLIS = 50;
+
+    private final VehicleRepository vehicleRepository;
+    private final TaskScheduler taskScheduler;
+    private final AtomicReference<VehicleAggregatesResponse> current = new AtomicReference<>();
+
+    // A write increments writes when it starts and again when it completes, and is in flight in between
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+
+    public VehicleAggregates(VehicleRepository vehicleRepository, TaskScheduler taskScheduler) {
+        this.vehicleRepository = vehicleRepository;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    void start() {
+        // Nothing writes before startup completes, so the first recount cannot collide
+        reconcile();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("fleet.vehicle.aggregates.corrections", corrections, AtomicLong::get)
+                .description("Recounts that found the in-memory vehicle aggregates off")
+                .register(registry);
+    }
+
+    public VehicleAggregatesResponse get() {
+        return current.get();
+    }
+
+    /**
+     * Counts a vehicle the current transaction inserted.
+     */
+    public void added(VehicleStatus status, String brand, int year) {
+        changes().add(status, brand, year, 1);
+    }
+
+    /**
+     * Uncounts a vehicle the current transaction deleted, or the old values of one it updated.
+     */
+    public void removed(VehicleStatus status, String brand, int year) {
+        changes().add(status, brand, year, -1);
+    }
+
+    /**
+     * Recounts after the current transaction commits, for writes that do not report their rows.
+     */
+    public void changedInBulk() {
+        changes().bulk = true;
+    }
+
+    /**
+     * Recomputes the counts from the table, retrying while writes overlap the query.
+     */
+    @Scheduled(fixedDelayString = "${fleet.vehicle-aggregates.reconcile-interval:PT5M}",
+            initialDelayString = "${fleet.vehicle-aggregates.reconcile-interval:PT5M}")
+    public void reconcile() {
+        try {
+            for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+                if (tryReconcile()) {
+                    return;
+                }
+                Thread.sleep(RECONCILE_RETRY_DELAY_MILLIS);
+            }
+            log.debug("Vehicle aggregates not reconciled, writes kept overlapping the recount");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean tryReconcile() {
+        long writesBefore = writes.get();
+        if (inFlight.get() > 0) {
+            return false;
+        }
+        VehicleAggregatesResponse before = current.get();
+
+        long total = 0;
+        long[] byStatus = new long[STATUSES.length];
+        Map<String, Long> byBrand = new TreeMap<>();
+        Map<Integer, Long> byYear = new TreeMap<>();
+        for (VehicleGroupCount row : vehicleRepository.countByStatusBrandAndYear()) {
+            if (row.status() != null) {
+                byStatus[row.status().ordinal()] = row.count();
+            } else if (row.brand() != null) {
+                byBrand.put(row.brand(), row.count());
+            } else if (row.year() != null) {
+                byYear.put(row.year(), row.count());
+            } else {
+                total = row.count();
+            }
+        }
+        VehicleAggregatesResponse recounted = snapshot(total, byStatus, byBrand, byYear, LocalDateTime.now());
+
+        // A write that starts after this check commits after the recount's snapshot, and applies to the new counts
+        if (writes.get() != writesBefore || !current.compareAndSet(before, recounted)) {
+            return false;
+        }
+        if (before != null && !sameCounts(before, recounted)) {
+            corrections.incrementAndGet();
+            log.warn("Vehicle aggregates were off and have been recounted: {} vehicles instead of {}",
+                    recounted.total(), before.total());
+        }
+        return true;
+    }
+
+    private Changes changes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Vehicle writes must run in a transaction to be counted");
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            inFlight.incrementAndGet();
+            writes.incrementAndGet();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    private static boolean sameCounts(VehicleAggregatesResponse a, VehicleAggregatesResponse b) {
+        return a.total() == b.total()
+                && a.byStatus().equals(b.byStatus())
+                && a.byBrand().equals(b.byBrand())
+                && a.byYear().equals(b.byYear());
+    }
+
+    /**
+     * Takes ownership of the sorted {@code byBrand} and {@code byYear} maps.
+     */
+    private static VehicleAggregatesResponse snapshot(
+            long total,
+            long[] byStatus,
+            Map<String, Long> byBrand,
+            Map<Integer, Long> byYear,
+            LocalDateTime reconciledAt
+    ) {
+        Map<VehicleStatus, Long> statuses = new EnumMap<>(VehicleStatus.class);
+        for (VehicleStatus status : STATUSES) {
+            statuses.put(status, byStatus[status.ordinal()]);
+        }
+        return new VehicleAggregatesResponse(
+                total,
+                Collections.unmodifiableMap(statuses),
+                Collections.unmodifiableMap(byBrand),
+                Collections.unmodifiableMap(byYear),
+                reconciledAt
+        );
+    }
+
+    /**
+     * Net changes of one transaction, applied once it has committed.
+     */
+    private final class Changes implements TransactionSynchronization {
+
+        private long total;
+        private final long[] byStatus = new long[STATUSES.length];
+        private final Map<String, Long> byBrand = new HashMap<>();
+        private final Map<Integer, Long> byYear = new HashMap<>();
+        private boolean bulk;
+
+        void add(VehicleStatus status, String brand, int year, long delta) {
+            total += delta;
+            byStatus[status.ordinal()] += delta;
+            byBrand.merge(brand, delta, Long::sum);
+            byYear.merge(year, delta, Long::sum);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(VehicleAggregates.this);
+            boolean committed = status == STATUS_COMMITTED;
+            if (committed && !bulk) {
+                current.updateAndGet(this::applyTo);
+            }
+            writes.incrementAndGet();
+            inFlight.decrementAndGet();
+            if (committed && bulk) {
+                taskScheduler.schedule(VehicleAggregates.this::reconcile, Instant.now());
+            }
+        }
+
+        private VehicleAggregatesResponse applyTo(VehicleAggregatesResponse counts) {
+            long[] statuses = new long[STATUSES.length];
+            for (VehicleStatus status : STATUSES) {
+                statuses[status.ordinal()] = counts.byStatus().get(status) + byStatus[status.ordinal()];
+            }
+            return snapshot(
+                    counts.total() + total,
+                    statuses,
+                    plus(counts.byBrand(), byBrand),
+                    plus(counts.byYear(), byYear),
+                    counts.reconciledAt()
+            );
+        }
+
+        private static <K> Map<K, Long> plus(Map<K, Long> counts, Map<K, Long> deltas) {
+            Map<K, Long> sum = new TreeMap<>(counts);
+            deltas.forEach((key, delta) -> {
+                if (delta != 0) {
+                    // a count that drops to zero removes the key
+                    sum.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+                }
+            });
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the change feed, opaque to clients.
+ *
+ * @param since    transaction id the current sync run started from, 0 for a full sync
+ * @param resume   transaction id the next run starts from, once this one has read everything
+ * @param afterXid transaction id of the last entry read
+ * @param afterId  id of the last entry read, {@link #NO_ID} at the start of a run
+ */
+record VehicleChangeToken(long since, long resume, long afterXid, UUID afterId) {
+
+    static final UUID NO_ID = new UUID(0, 0);
+
+    static final VehicleChangeToken FULL_SYNC = startingAt(0);
+
+    /**
+     * A run reading everything changed by transaction {@code xid} and later.
+     */
+    static VehicleChangeToken startingAt(long xid) {
+        return new VehicleChangeToken(xid, xid, xid, NO_ID);
+    }
+
+    boolean isStartOfRun() {
+        return NO_ID.equals(afterId);
+    }
+
+    String encode() {
+        String raw = since + "|" + resume + "|" + afterXid + "|" + afterId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static VehicleChangeToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 4) {
+                VehicleChangeToken decoded = new VehicleChangeToken(
+                        Long.parseLong(parts[0]),
+                        Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]),
+                        UUID.fromString(parts[3])
+                );
+                if (decoded.since >= 0 && decoded.resume >= 0 && decoded.afterXid >= 0) {
+                    return decoded;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid change token: " + token);
+    }
+}
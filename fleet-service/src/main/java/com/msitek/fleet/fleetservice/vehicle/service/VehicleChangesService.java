@@ -0,0 +1,92 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleChangesResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehicleChangesExpiredException;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleChange;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleChangeHorizon;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change feed for clients that mirror the fleet, paged by transaction id with tombstones for deletions.
+ */
+@Slf4j
+@Service
+public class VehicleChangesService {
+
+    public static final int MAX_LIMIT = 5000;
+
+    private final VehicleRepository vehicleRepository;
+    private final Duration tombstoneRetention;
+
+    public VehicleChangesService(
+            VehicleRepository vehicleRepository,
+            @Value("${fleet.vehicle-changes.tombstone-retention:P30D}") Duration tombstoneRetention
+    ) {
+        this.vehicleRepository = vehicleRepository;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code token}, or from the beginning of the fleet's history for a
+     * {@code null} token.
+     */
+    @Transactional(readOnly = true)
+    public VehicleChangesResponse changesSince(String token, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        VehicleChangeToken from = token == null ? VehicleChangeToken.FULL_SYNC : VehicleChangeToken.decode(token);
+
+        VehicleChangeHorizon horizon = vehicleRepository.findChangeHorizon();
+        if (from.since() > 0 && from.since() <= horizon.tombstonesCompactedThrough()) {
+            throw new VehicleChangesExpiredException("Change token is older than the tombstone retention of "
+                    + tombstoneRetention + ", sync again without a token");
+        }
+        long resume = from.isStartOfRun() ? horizon.snapshotXmin() : from.resume();
+
+        List<VehicleChange> changes = vehicleRepository.findChanges(from.afterXid(), from.afterId(), limit + 1);
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        List<VehicleResponse> vehicles = new ArrayList<>();
+        List<VehicleChangesResponse.Deletion> deleted = new ArrayList<>();
+        for (VehicleChange change : changes) {
+            if (change.vehicle() != null) {
+                vehicles.add(change.vehicle());
+            } else {
+                deleted.add(new VehicleChangesResponse.Deletion(change.id(), change.deletedAt()));
+            }
+        }
+
+        VehicleChangeToken next;
+        if (hasMore) {
+            VehicleChange last = changes.get(changes.size() - 1);
+            next = new VehicleChangeToken(from.since(), resume, last.changeXid(), last.id());
+        } else {
+            next = VehicleChangeToken.startingAt(resume);
+        }
+        return new VehicleChangesResponse(vehicles, deleted, next.encode(), hasMore);
+    }
+
+    @Scheduled(fixedDelayString = "${fleet.vehicle-changes.compaction-interval:PT1H}",
+            initialDelayString = "${fleet.vehicle-changes.compaction-interval:PT1H}")
+    public void compactTombstones() {
+        int compacted = vehicleRepository.compactTombstones(LocalDateTime.now().minus(tombstoneRetention));
+        if (compacted > 0) {
+            log.info("Compacted {} vehicle tombstones older than {}", compacted, tombstoneRetention);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.msitek.fleet.fleetservice.vehicle.exception.VehicleConflictException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.postgresql.util.PSQLException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/**
+ * Maps violations of the unique constraints on {@code vehicles} to the request field they are about, so writes
+ * can rely on the constraints instead of checking for existing keys first.
+ */
+final class VehicleConstraints {
+
+    // PostgreSQL's default names for the UNIQUE columns declared in V1__init.sql
+    static final String VIN_KEY = "vehicles_vin_key";
+    static final String PLATE_NUMBER_KEY = "vehicles_plate_number_key";
+
+    private VehicleConstraints() {
+    }
+
+    /**
+     * Returns the {@link VehicleConflictException} for a violated VIN or plate number constraint, or {@code e}
+     * itself if some other constraint was violated.
+     */
+    static RuntimeException toConflict(DataIntegrityViolationException e, String vin, String plateNumber) {
+        String constraint = constraintName(e);
+        if (VIN_KEY.equals(constraint)) {
+            return new VehicleConflictException("VIN already exists: " + vin, "vin");
+        }
+        if (PLATE_NUMBER_KEY.equals(constraint)) {
+            return new VehicleConflictException("Plate number already exists: " + plateNumber, "plateNumber");
+        }
+        return e;
+    }
+
+    private static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName();
+            }
+            // JDBC batches report the failing statement as the next exception rather than the cause
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (next instanceof PSQLException psql && psql.getServerErrorMessage() != null) {
+                        return psql.getServerErrorMessage().getConstraint();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
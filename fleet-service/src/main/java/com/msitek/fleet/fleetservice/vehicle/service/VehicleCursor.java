@@ -0,0 +1,31 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a {@code (createdAt, id)} ordered traversal of the fleet. The encoded form is opaque to clients
+ * and also pins the sort direction, so every page of one traversal is read in the same order.
+ */
+record VehicleCursor(LocalDateTime createdAt, UUID id, boolean descending) {
+
+    String encode() {
+        String raw = createdAt + "|" + id + "|" + (descending ? "d" : "a");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static VehicleCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 3 && (parts[2].equals("a") || parts[2].equals("d"))) {
+                return new VehicleCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]), parts[2].equals("d"));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+}
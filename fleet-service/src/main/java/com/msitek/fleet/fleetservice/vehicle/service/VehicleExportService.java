@@ -0,0 +1,116 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole fleet to an output stream row by row. Rows come from a server-side cursor and are written
+ * as soon as they are read, so heap usage does not depend on the number of vehicles.
+ * <p>
+ * The CBOR export uses the application's object mapper configuration over a CBOR factory.
+ */
+@Service
+public class VehicleExportService {
+
+    private static final String CSV_HEADER = "id,plateNumber,vin,brand,model,year,status,createdAt,updatedAt";
+
+    private final VehicleRepository vehicleRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+
+    public VehicleExportService(VehicleRepository vehicleRepository, ObjectMapper objectMapper) {
+        this.vehicleRepository = vehicleRepository;
+        this.objectMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    @Transactional(readOnly = true)
+    public void export(String q, VehicleFileFormat format, OutputStream out) throws IOException {
+        try (Stream<VehicleResponse> rows = (q == null || q.isBlank())
+                ? vehicleRepository.streamAll()
+                : vehicleRepository.streamSearch(q.trim().toLowerCase())) {
+
+            switch (format) {
+                case NDJSON -> writeNdjson(rows.iterator(), out);
+                case CSV -> writeCsv(rows.iterator(), out);
+                case CBOR -> writeCborSequence(rows.iterator(), out);
+                default -> throw new IllegalStateException("Unhandled export format: " + format);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<VehicleResponse> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // each row ends its own line, so no separator goes between root values
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                writer.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void writeCborSequence(Iterator<VehicleResponse> rows, OutputStream out) throws IOException {
+        try (SequenceWriter writer = cborMapper.writer().writeValues(out)) {
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+            }
+        }
+    }
+
+    private static void writeCsv(Iterator<VehicleResponse> rows, OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            while (rows.hasNext()) {
+                VehicleResponse v = rows.next();
+                writer.write(v.id().toString());
+                writer.write(',');
+                writeCsvField(writer, v.plateNumber());
+                writer.write(',');
+                writeCsvField(writer, v.vin());
+                writer.write(',');
+                writeCsvField(writer, v.brand());
+                writer.write(',');
+                writeCsvField(writer, v.model());
+                writer.write(',');
+                writer.write(Integer.toString(v.year()));
+                writer.write(',');
+                writer.write(v.status().name());
+                writer.write(',');
+                writer.write(v.createdAt().toString());
+                writer.write(',');
+                writer.write(v.updatedAt().toString());
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,44 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Record-oriented file formats used by the fleet export and import. Import accepts the text formats only.
+ */
+public enum VehicleFileFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv")),
+    /**
+     * CBOR sequence (RFC 8742): one CBOR-encoded vehicle after another, without separators.
+     */
+    CBOR(MediaType.parseMediaType("application/cbor-seq"));
+
+    private final MediaType mediaType;
+
+    VehicleFileFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static VehicleFileFormat parse(String value) {
+        for (VehicleFileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + value);
+    }
+
+    public static VehicleFileFormat of(MediaType contentType) {
+        for (VehicleFileFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType);
+    }
+}
@@ -0,0 +1,321 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.events.EventStream;
+import com.msitek.fleet.fleetservice.position.service.VehiclePositions;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleImportResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehiclesChangedEvent;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehicleConflictException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk upsert of the vehicle register from a CSV or NDJSON upload.
+ * <p>
+ * The upload is parsed row by row and each row is validated with the rules of {@link CreateVehicleRequest}.
+ * Valid rows are streamed through the PostgreSQL COPY protocol into a temporary staging table, and then merged
+ * into {@code vehicles} by VIN with a single {@code INSERT ... ON CONFLICT} statement. Nothing but the current
+ * row and a small COPY buffer is held in memory, and everything runs in one transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleImportService {
+
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final List<String> CSV_COLUMNS = List.of("plateNumber", "vin", "brand", "model", "year", "status");
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMP TABLE vehicle_import (
+                line_no BIGINT NOT NULL,
+                plate_number VARCHAR(20) NOT NULL,
+                vin VARCHAR(17) NOT NULL,
+                brand VARCHAR(100) NOT NULL,
+                model VARCHAR(100) NOT NULL,
+                year INT NOT NULL,
+                status VARCHAR(30) NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_INTO_STAGING_TABLE = """
+            COPY vehicle_import (line_no, plate_number, vin, brand, model, year, status) FROM STDIN (FORMAT csv)
+            """;
+
+    // Later rows win: an earlier row for the same VIN, or claiming the same plate, is dropped.
+    private static final String DROP_DUPLICATE_VINS = """
+            DELETE FROM vehicle_import
+            WHERE line_no IN (SELECT line_no
+                              FROM (SELECT line_no, row_number() OVER (PARTITION BY vin ORDER BY line_no DESC) AS rn
+                                    FROM vehicle_import) AS ranked
+                              WHERE rn > 1)
+            RETURNING line_no, vin
+            """;
+
+    private static final String DROP_DUPLICATE_PLATES = """
+            DELETE FROM vehicle_import
+            WHERE line_no IN (SELECT line_no
+                              FROM (SELECT line_no, row_number() OVER (PARTITION BY plate_number ORDER BY line_no DESC) AS rn
+                                    FROM vehicle_import) AS ranked
+                              WHERE rn > 1)
+            RETURNING line_no, plate_number
+            """;
+
+    private static final String DROP_PLATES_OF_OTHER_VEHICLES = """
+            DELETE FROM vehicle_import i USING vehicles v
+            WHERE v.plate_number = i.plate_number AND v.vin <> i.vin
+            RETURNING i.line_no, i.plate_number
+            """;
+
+    private static final String MERGE_INTO_VEHICLES = """
+            WITH merged AS (
+                INSERT INTO vehicles AS v (id, plate_number, vin, brand, model, year, status, created_at, updated_at)
+                SELECT uuid_generate_v7(), plate_number, vin, brand, model, year, status, localtimestamp, localtimestamp
+                FROM vehicle_import
+                ON CONFLICT (vin) DO UPDATE
+                    SET plate_number = EXCLUDED.plate_number,
+                        brand = EXCLUDED.brand,
+                        model = EXCLUDED.model,
+                        year = EXCLUDED.year,
+                        status = EXCLUDED.status,
+                        updated_at = EXCLUDED.updated_at,
+                        version = v.version + 1
+                    WHERE (v.plate_number, v.brand, v.model, v.year, v.status)
+                          IS DISTINCT FROM (EXCLUDED.plate_number, EXCLUDED.brand, EXCLUDED.model, EXCLUDED.year, EXCLUDED.status)
+                RETURNING (xmax = 0) AS inserted
+            )
+            SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VehicleLookupCache lookupCache;
+    private final VehicleAggregates aggregates;
+    private final EventStream events;
+    private final VehiclePositions positions;
+
+    @Transactional
+    public VehicleImportResponse importVehicles(InputStream upload, VehicleFileFormat format) throws IOException {
+        Rejections rejections = new Rejections();
+
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        long staged = copyIntoStaging(upload, format, rejections);
+        jdbcTemplate.execute("ANALYZE vehicle_import");
+
+        staged -= dropRows(DROP_DUPLICATE_VINS, "Superseded by a later row for VIN ", rejections);
+        staged -= dropRows(DROP_DUPLICATE_PLATES, "Plate number claimed by a later row: ", rejections);
+        staged -= dropRows(DROP_PLATES_OF_OTHER_VEHICLES, "Plate number belongs to another vehicle: ", rejections);
+
+        long[] merged;
+        try {
+            merged = jdbcTemplate.queryForObject(MERGE_INTO_VEHICLES, (rs, i) -> new long[] {rs.getLong(1), rs.getLong(2)});
+        } catch (DataIntegrityViolationException e) {
+            throw new VehicleConflictException("Import conflicts with existing or concurrently written vehicles, nothing was imported");
+        }
+        lookupCache.evictAll();
+        aggregates.changedInBulk();
+        positions.changedInBulk();
+        if (merged[0] + merged[1] > 0) {
+            events.publishAfterCommit("vehicles-changed", new VehiclesChangedEvent(merged[0], merged[1]));
+        }
+
+        return new VehicleImportResponse(
+                merged[0],
+                merged[1],
+                staged - merged[0] - merged[1],
+                rejections.count,
+                rejections.reported
+        );
+    }
+
+    private long copyIntoStaging(InputStream upload, VehicleFileFormat format, Rejections rejections) throws IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_INTO_STAGING_TABLE);
+            try {
+                StagingWriter writer = new StagingWriter(copyIn);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(upload, StandardCharsets.UTF_8));
+                switch (format) {
+                    case CSV -> readCsv(reader, writer, rejections);
+                    case NDJSON -> readNdjson(reader, writer, rejections);
+                    default -> throw new IllegalStateException("Unhandled import format: " + format);
+                }
+                writer.flush();
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into staging table failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, StagingWriter writer, Rejections rejections) throws IOException, SQLException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            String name = header.get(i);
+            // spreadsheet exports often start with a byte order mark and put spaces after the commas
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns.put(name.trim(), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must contain the columns " + String.join(",", CSV_COLUMNS));
+        }
+
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (fields.size() != header.size()) {
+                rejections.add(csv.recordLine(), "Expected " + header.size() + " fields but got " + fields.size());
+                continue;
+            }
+
+            CreateVehicleRequest request;
+            try {
+                request = new CreateVehicleRequest(
+                        fields.get(columns.get("plateNumber")),
+                        fields.get(columns.get("vin")),
+                        fields.get(columns.get("brand")),
+                        fields.get(columns.get("model")),
+                        Integer.parseInt(fields.get(columns.get("year")).trim()),
+                        VehicleStatus.valueOf(fields.get(columns.get("status")).trim())
+                );
+            } catch (IllegalArgumentException e) {
+                rejections.add(csv.recordLine(), "Invalid year or status");
+                continue;
+            }
+            stageIfValid(csv.recordLine(), request, writer, rejections);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, StagingWriter writer, Rejections rejections) throws IOException, SQLException {
+        long lineNo = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            CreateVehicleRequest request;
+            try {
+                request = objectMapper.readValue(line, CreateVehicleRequest.class);
+            } catch (JsonProcessingException e) {
+                rejections.add(lineNo, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            stageIfValid(lineNo, request, writer, rejections);
+        }
+    }
+
+    private void stageIfValid(long lineNo, CreateVehicleRequest request, StagingWriter writer, Rejections rejections)
+            throws SQLException {
+        var violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            rejections.add(lineNo, violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+        writer.write(lineNo, request);
+    }
+
+    private long dropRows(String sql, String reason, Rejections rejections) {
+        long before = rejections.count;
+        jdbcTemplate.query(sql, rs -> {
+            rejections.add(rs.getLong(1), reason + rs.getString(2));
+        });
+        return rejections.count - before;
+    }
+
+    /**
+     * Encodes staged rows as COPY csv and hands them to the driver in chunks.
+     */
+    private static final class StagingWriter {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+
+        StagingWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void write(long lineNo, CreateVehicleRequest request) throws SQLException {
+            buffer.append(lineNo).append(',');
+            appendQuoted(request.plateNumber());
+            buffer.append(',');
+            appendQuoted(request.vin());
+            buffer.append(',');
+            appendQuoted(request.brand());
+            buffer.append(',');
+            appendQuoted(request.model());
+            buffer.append(',').append(request.year()).append(',').append(request.status().name()).append('\n');
+
+            if (buffer.length() >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        private void appendQuoted(String value) {
+            buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private static final class Rejections {
+
+        private long count;
+        private final List<VehicleImportResponse.Rejection> reported = new ArrayList<>();
+
+        void add(long line, String reason) {
+            count++;
+            if (reported.size() < MAX_REPORTED_REJECTIONS) {
+                reported.add(new VehicleImportResponse.Rejection(line, reason));
+            }
+        }
+    }
+}
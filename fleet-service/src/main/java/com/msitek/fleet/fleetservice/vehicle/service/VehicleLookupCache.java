@@ -0,0 +1,144 @@
+package com.msitek.fleet.fleetservice.vehicle.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.msitek.fleet.fleetservice.common.datasource.ReplicaReads;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting cache for the single-vehicle lookups (by id, VIN and plate number).
+ * Misses are cached too, as {@link Optional#empty()}, so repeated lookups of unknown keys skip the database.
+ * Writers evict every key a vehicle was or is reachable under via {@link #evict(UUID, String, String)}.
+ * <p>
+ * Concurrent lookups of the same key share one database load. The load runs on the calling thread outside of any
+ * cache lock, and the others wait on its future: a synchronous Caffeine cache would run the loader inside
+ * {@code ConcurrentHashMap.compute}, which pins a virtual thread to its carrier for the whole JDBC round trip.
+ * <p>
+ * Size, hits, misses and evictions are published as {@code cache_*} meters tagged {@code cache="vehicleLookup"}.
+ */
+@Component
+public class VehicleLookupCache implements MeterBinder {
+
+    private enum KeyType { ID, VIN, PLATE }
+
+    private record Key(KeyType type, Object value) {}
+
+    private final AsyncCache<Key, Optional<VehicleResponse>> cache;
+
+    public VehicleLookupCache(
+            @Value("${fleet.vehicle-cache.maximum-size:10000}") long maximumSize,
+            @Value("${fleet.vehicle-cache.ttl:PT1M}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "vehicleLookup");
+    }
+
+    public Optional<VehicleResponse> byId(UUID id, Supplier<Optional<VehicleResponse>> loader) {
+        return get(new Key(KeyType.ID, id), loader);
+    }
+
+    public Optional<VehicleResponse> byVin(String vin, Supplier<Optional<VehicleResponse>> loader) {
+        return get(new Key(KeyType.VIN, vin), loader);
+    }
+
+    public Optional<VehicleResponse> byPlateNumber(String plateNumber, Supplier<Optional<VehicleResponse>> loader) {
+        return get(new Key(KeyType.PLATE, plateNumber), loader);
+    }
+
+    /**
+     * Evicts the given id, VIN and plate number (any may be {@code null}). Inside a transaction the eviction
+     * runs after completion, so a concurrent reader cannot re-cache the row it saw before the commit.
+     */
+    public void evict(UUID id, String vin, String plateNumber) {
+        List<Key> keys = new ArrayList<>(3);
+        if (id != null) {
+            keys.add(new Key(KeyType.ID, id));
+        }
+        if (vin != null) {
+            keys.add(new Key(KeyType.VIN, vin));
+        }
+        if (plateNumber != null) {
+            keys.add(new Key(KeyType.PLATE, plateNumber));
+        }
+
+        afterCompletion(() -> cache.synchronous().invalidateAll(keys));
+    }
+
+    /**
+     * Evicts everything, after completion of the current transaction if there is one. For bulk writes
+     * where tracking individual keys is not worth it.
+     */
+    public void evictAll() {
+        afterCompletion(() -> cache.synchronous().invalidateAll());
+    }
+
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    private Optional<VehicleResponse> get(Key key, Supplier<Optional<VehicleResponse>> loader) {
+        CompletableFuture<Optional<VehicleResponse>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<VehicleResponse>> cached = cache.get(key, (k, executor) -> loading);
+        if (cached == loading) {
+            try {
+                // Entries are served to every client, so a replica must have caught up with every write to load them
+                loading.complete(ReplicaReads.latest(loader));
+            } catch (RuntimeException e) {
+                // a failed future is dropped from the cache, so the next lookup retries
+                loading.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static void afterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -1,55 +1,71 @@
 package com.msitek.fleet.fleetservice.vehicle.service;
 
+import com.msitek.fleet.fleetservice.common.id.UuidV7;
+import com.msitek.fleet.fleetservice.events.EventStream;
+import com.msitek.fleet.fleetservice.position.service.VehiclePositions;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleBatchItemResult;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleBatchResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleChangesResponse;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.VehiclesChangedEvent;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
 import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleConflictException;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleNotFoundException;
+import com.msitek.fleet.fleetservice.vehicle.exception.VehiclePreconditionFailedException;
+import com.msitek.fleet.fleetservice.vehicle.repository.DeletedVehicle;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleNaturalKeys;
 import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleUpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class VehicleService {
 
     private final VehicleRepository vehicleRepository;
+    private final VehicleLookupCache lookupCache;
+    private final VehicleAggregates aggregates;
+    private final EventStream events;
+    private final VehiclePositions positions;
 
+    /**
+     * Inserts the vehicle with a single statement; a taken VIN or plate number is detected by the unique
+     * constraints rather than checked up front.
+     */
+    @Transactional
     public VehicleResponse create(CreateVehicleRequest request) {
+        Vehicle vehicle = newVehicle(request, LocalDateTime.now());
 
-        if (vehicleRepository.existsByVin(request.vin())) {
-            throw new VehicleConflictException("VIN already exists: " + request.vin());
+        Vehicle saved;
+        try {
+            saved = vehicleRepository.saveAndFlush(vehicle);
+        } catch (DataIntegrityViolationException e) {
+            throw VehicleConstraints.toConflict(e, request.vin(), request.plateNumber());
         }
+        lookupCache.evict(saved.getId(), saved.getVin(), saved.getPlateNumber());
+        aggregates.added(saved.getStatus(), saved.getBrand(), saved.getYear());
 
-        if (vehicleRepository.existsByPlateNumber(request.plateNumber())) {
-            throw new VehicleConflictException("Plate number already exists: " + request.plateNumber());
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-
-        Vehicle vehicle = Vehicle.builder()
-                .id(UUID.randomUUID())
-                .plateNumber(request.plateNumber())
-                .vin(request.vin())
-                .brand(request.brand())
-                .model(request.model())
-                .year(request.year())
-                .status(request.status())
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
-
-        Vehicle saved = vehicleRepository.save(vehicle);
-
-        return new VehicleResponse(
+        VehicleResponse created = new VehicleResponse(
                 saved.getId(),
                 saved.getPlateNumber(),
                 saved.getVin(),
@@ -58,34 +74,83 @@ public class VehicleService {
                 saved.getYear(),
                 saved.getStatus(),
                 saved.getCreatedAt(),
-                saved.getUpdatedAt()
+                saved.getUpdatedAt(),
+                saved.getVersion()
         );
+        events.publishAfterCommit("vehicle-created", created);
+        return created;
     }
 
-    public PageResponse<VehicleResponse> list(String q, Pageable pageable) {
+    /**
+     * Creates many vehicles at once. VINs and plate numbers are checked against the table in one query and
+     * against earlier entries of the same batch; conflicting entries are reported and skipped, the rest is
+     * inserted with JDBC batching in a single transaction.
+     */
+    @Transactional
+    public VehicleBatchResponse createBatch(List<CreateVehicleRequest> requests) {
+        Set<String> takenVins = new HashSet<>();
+        Set<String> takenPlateNumbers = new HashSet<>();
+        for (VehicleNaturalKeys existing : vehicleRepository.findByVinInOrPlateNumberIn(
+                requests.stream().map(CreateVehicleRequest::vin).collect(Collectors.toSet()),
+                requests.stream().map(CreateVehicleRequest::plateNumber).collect(Collectors.toSet()))) {
+            takenVins.add(existing.getVin());
+            takenPlateNumbers.add(existing.getPlateNumber());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Vehicle> vehicles = new ArrayList<>(requests.size());
+        List<VehicleBatchItemResult> items = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateVehicleRequest request = requests.get(i);
+
+            if (takenVins.contains(request.vin())) {
+                items.add(VehicleBatchItemResult.conflict(i, "VIN already exists: " + request.vin()));
+                continue;
+            }
+            if (takenPlateNumbers.contains(request.plateNumber())) {
+                items.add(VehicleBatchItemResult.conflict(i, "Plate number already exists: " + request.plateNumber()));
+                continue;
+            }
 
-        Page<Vehicle> page;
+            takenVins.add(request.vin());
+            takenPlateNumbers.add(request.plateNumber());
 
-        if (q == null || q.isBlank()) {
-            page = vehicleRepository.findAll(pageable);
-        } else {
-            page = vehicleRepository.search(q.trim().toLowerCase(), pageable);
+            Vehicle vehicle = newVehicle(request, now);
+            vehicles.add(vehicle);
+            items.add(VehicleBatchItemResult.created(i, vehicle.getId()));
         }
 
-        Function<Vehicle, VehicleResponse> mapper = v -> new VehicleResponse(
-                v.getId(),
-                v.getPlateNumber(),
-                v.getVin(),
-                v.getBrand(),
-                v.getModel(),
-                v.getYear(),
-                v.getStatus(),
-                v.getCreatedAt(),
-                v.getUpdatedAt()
-        );
+        try {
+            vehicleRepository.insertAll(vehicles);
+        } catch (DataIntegrityViolationException e) {
+            throw new VehicleConflictException("Batch conflicts with a concurrent write, nothing was created");
+        }
+
+        for (Vehicle vehicle : vehicles) {
+            lookupCache.evict(vehicle.getId(), vehicle.getVin(), vehicle.getPlateNumber());
+            aggregates.added(vehicle.getStatus(), vehicle.getBrand(), vehicle.getYear());
+        }
+        if (!vehicles.isEmpty()) {
+            events.publishAfterCommit("vehicles-changed", new VehiclesChangedEvent(vehicles.size(), 0));
+        }
+
+        return new VehicleBatchResponse(vehicles.size(), requests.size() - vehicles.size(), items);
+    }
+
+    /**
+     * Offset page of vehicles. Only the columns of {@code fields} are selected and rows are read straight into
+     * DTOs; the read-only transaction also lets Hibernate skip snapshots and flushing.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<VehicleResponse> list(String q, Set<VehicleField> fields, Pageable pageable) {
+        String term = (q == null || q.isBlank()) ? null : q.trim().toLowerCase();
+        // Checked here, since the repository proxy would turn the IllegalArgumentException into a data access error
+        pageable.getSort().forEach(order -> VehicleField.of(order.getProperty()));
+        Page<VehicleResponse> page = vehicleRepository.findPage(term, fields, pageable);
 
         return new PageResponse<>(
-                page.getContent().stream().map(mapper).toList(),
+                page.getContent(),
                 page.getNumber(),
                 page.getSize(),
                 page.getTotalElements(),
@@ -93,89 +158,140 @@ public class VehicleService {
         );
     }
 
-    public VehicleResponse getById(UUID id) {
-        Vehicle vehicle = vehicleRepository.findById(id)
-                .orElseThrow(() -> new VehicleNotFoundException("Vehicle not found: " + id));
+    /**
+     * Cursor (keyset) mode of {@link #list(String, Set, Pageable)}: seeks past the position encoded in
+     * {@code cursor} instead of skipping rows, and skips the count query. An empty cursor starts a new traversal
+     * whose direction is taken from the {@code createdAt} sort of {@code pageable} (newest first by default).
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<VehicleResponse> list(String q, String cursor, Set<VehicleField> fields, Pageable pageable) {
+        VehicleCursor after = cursor.isBlank() ? null : VehicleCursor.decode(cursor);
+        boolean descending = after != null ? after.descending() : isDescendingByCreatedAt(pageable.getSort());
+        String term = (q == null || q.isBlank()) ? null : q.trim().toLowerCase();
+        int size = pageable.getPageSize();
 
-        return new VehicleResponse(
-                vehicle.getId(),
-                vehicle.getPlateNumber(),
-                vehicle.getVin(),
-                vehicle.getBrand(),
-                vehicle.getModel(),
-                vehicle.getYear(),
-                vehicle.getStatus(),
-                vehicle.getCreatedAt(),
-                vehicle.getUpdatedAt()
+        // createdAt is the cursor key, so it is selected even when the client did not ask for it
+        EnumSet<VehicleField> selected = EnumSet.copyOf(fields);
+        selected.add(VehicleField.CREATED_AT);
+
+        List<VehicleResponse> slice = vehicleRepository.findSlice(
+                term,
+                after == null ? null : after.createdAt(),
+                after == null ? null : after.id(),
+                descending,
+                size + 1,
+                selected
         );
+
+        String nextCursor = null;
+        if (slice.size() > size) {
+            slice = slice.subList(0, size);
+            VehicleResponse last = slice.get(size - 1);
+            nextCursor = new VehicleCursor(last.createdAt(), last.id(), descending).encode();
+        }
+
+        return new PageResponse<>(slice.stream().map(vehicle -> vehicle.only(fields)).toList(), size, nextCursor);
     }
 
-    public VehicleResponse update(UUID id, UpdateVehicleRequest request) {
-        Vehicle vehicle = vehicleRepository.findById(id)
+    private static boolean isDescendingByCreatedAt(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        Sort.Order order = sort.getOrderFor("createdAt");
+        if (order == null || sort.stream().count() > 1) {
+            throw new IllegalArgumentException("Cursor pagination only supports sorting by createdAt");
+        }
+        return order.isDescending();
+    }
+
+    public VehicleResponse getById(UUID id) {
+        return lookupCache.byId(id, () -> vehicleRepository.findResponseById(id))
                 .orElseThrow(() -> new VehicleNotFoundException("Vehicle not found: " + id));
+    }
 
-        if (vehicleRepository.existsByVinAndIdNot(request.vin(), id)) {
-            throw new VehicleConflictException("VIN already exists: " + request.vin());
-        }
-        if (vehicleRepository.existsByPlateNumberAndIdNot(request.plateNumber(), id)) {
-            throw new VehicleConflictException("Plate number already exists: " + request.plateNumber());
+    /**
+     * Overwrites a vehicle in one conditional UPDATE rather than a load-then-save cycle.
+     *
+     * @param expectedVersion version the client last saw (from {@code If-Match}), or {@code null} to overwrite
+     *                        whatever is stored; a mismatch fails with {@link VehiclePreconditionFailedException}
+     */
+    @Transactional
+    public VehicleResponse update(UUID id, UpdateVehicleRequest request, Long expectedVersion) {
+        Vehicle changes = Vehicle.builder()
+                .id(id)
+                .plateNumber(request.plateNumber())
+                .vin(request.vin())
+                .brand(request.brand())
+                .model(request.model())
+                .year(request.year())
+                .status(request.status())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        Optional<VehicleUpdateResult> result;
+        try {
+            result = vehicleRepository.update(changes, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw VehicleConstraints.toConflict(e, request.vin(), request.plateNumber());
         }
 
-        vehicle.setPlateNumber(request.plateNumber());
-        vehicle.setVin(request.vin());
-        vehicle.setBrand(request.brand());
-        vehicle.setModel(request.model());
-        vehicle.setYear(request.year());
-        vehicle.setStatus(request.status());
-        vehicle.setUpdatedAt(LocalDateTime.now());
+        if (result.isEmpty()) {
+            if (expectedVersion != null && vehicleRepository.existsById(id)) {
+                throw new VehiclePreconditionFailedException("Vehicle " + id + " was modified, expected version "
+                        + expectedVersion);
+            }
+            throw new VehicleNotFoundException("Vehicle not found: " + id);
+        }
 
-        Vehicle saved = vehicleRepository.save(vehicle);
+        VehicleUpdateResult updated = result.get();
+        lookupCache.evict(id, updated.previousVin(), updated.previousPlateNumber());
+        lookupCache.evict(null, updated.vehicle().vin(), updated.vehicle().plateNumber());
+        aggregates.removed(updated.previousStatus(), updated.previousBrand(), updated.previousYear());
+        aggregates.added(updated.vehicle().status(), updated.vehicle().brand(), updated.vehicle().year());
+        if (updated.previousStatus() != updated.vehicle().status()) {
+            positions.statusChanged(id, updated.vehicle().status());
+        }
+        events.publishAfterCommit("vehicle-updated", updated.vehicle());
 
-        return new VehicleResponse(
-                saved.getId(),
-                saved.getPlateNumber(),
-                saved.getVin(),
-                saved.getBrand(),
-                saved.getModel(),
-                saved.getYear(),
-                saved.getStatus(),
-                saved.getCreatedAt(),
-                saved.getUpdatedAt()
-        );
+        return updated.vehicle();
     }
 
+    /**
+     * Deletes a vehicle in one DELETE rather than a load-then-delete cycle, which would fail on the version check if
+     * an update committed in between, and evicts and uncounts the values the row had when it was deleted.
+     */
+    @Transactional
     public void delete(UUID id) {
-        if (!vehicleRepository.existsById(id)) {
-            throw new VehicleNotFoundException("Vehicle not found: " + id);
-        }
-        vehicleRepository.deleteById(id);
+        DeletedVehicle vehicle = vehicleRepository.deleteReturning(id)
+                .orElseThrow(() -> new VehicleNotFoundException("Vehicle not found: " + id));
+
+        lookupCache.evict(id, vehicle.vin(), vehicle.plateNumber());
+        aggregates.removed(vehicle.status(), vehicle.brand(), vehicle.year());
+        positions.removed(id);
+        events.publishAfterCommit("vehicle-deleted", new VehicleChangesResponse.Deletion(id, LocalDateTime.now()));
     }
 
     public VehicleResponse getByVin(String vin) {
-        Vehicle vehicle = vehicleRepository.findByVin(vin)
+        return lookupCache.byVin(vin, () -> vehicleRepository.findResponseByVin(vin))
                 .orElseThrow(() -> new VehicleNotFoundException("VIN: " + vin));
-
-        return mapToResponse(vehicle);
     }
 
     public VehicleResponse getByPlateNumber(String plateNumber) {
-        Vehicle vehicle = vehicleRepository.findByPlateNumber(plateNumber)
+        return lookupCache.byPlateNumber(plateNumber, () -> vehicleRepository.findResponseByPlateNumber(plateNumber))
                 .orElseThrow(() -> new VehicleNotFoundException("Plate number: " + plateNumber));
-
-        return mapToResponse(vehicle);
     }
 
-    private VehicleResponse mapToResponse(Vehicle vehicle) {
-        return new VehicleResponse(
-                vehicle.getId(),
-                vehicle.getPlateNumber(),
-                vehicle.getVin(),
-                vehicle.getBrand(),
-                vehicle.getModel(),
-                vehicle.getYear(),
-                vehicle.getStatus(),
-                vehicle.getCreatedAt(),
-                vehicle.getUpdatedAt()
-        );
+    private static Vehicle newVehicle(CreateVehicleRequest request, LocalDateTime now) {
+        return Vehicle.builder()
+                .id(UuidV7.generate())
+                .plateNumber(request.plateNumber())
+                .vin(request.vin())
+                .brand(request.brand())
+                .model(request.model())
+                .year(request.year())
+                .status(request.status())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
     }
 }
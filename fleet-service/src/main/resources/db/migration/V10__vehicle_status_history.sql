@@ -0,0 +1,84 @@
+-- Append-only log of vehicle status transitions, written by triggers in the transaction of every insert, status
+-- update and delete, whichever code path wrote it. Creation has no from_status and deletion no to_status. Rows are
+-- never updated, and changed_at is the clock time of the statement that changed the vehicle: a transaction that
+-- waited for another's row lock is stamped after it. The log outlives deleted vehicles, so there is no foreign key.
+CREATE TABLE vehicle_status_changes (
+    vehicle_id UUID NOT NULL,
+    from_status VARCHAR(30),
+    to_status VARCHAR(30),
+    changed_at TIMESTAMPTZ NOT NULL
+);
+
+-- Rows arrive in changed_at order, so a BRIN index of a few pages narrows a time range to the blocks that hold it,
+-- however many years the table spans
+CREATE INDEX idx_vehicle_status_changes_changed_at ON vehicle_status_changes USING brin (changed_at);
+-- A vehicle's history
+CREATE INDEX idx_vehicle_status_changes_vehicle_changed_at ON vehicle_status_changes (vehicle_id, changed_at);
+
+-- Statement-level, reading the transition tables: an import or batch insert logs its rows with one INSERT
+CREATE FUNCTION vehicles_log_status_insert() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO vehicle_status_changes (vehicle_id, from_status, to_status, changed_at)
+    SELECT id, NULL, status, clock_timestamp() FROM inserted_vehicles;
+    RETURN NULL;
+END
+$$;
+
+CREATE FUNCTION vehicles_log_status_update() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO vehicle_status_changes (vehicle_id, from_status, to_status, changed_at)
+    SELECT n.id, o.status, n.status, clock_timestamp()
+    FROM old_vehicles o
+    JOIN new_vehicles n ON n.id = o.id
+    WHERE n.status <> o.status;
+    RETURN NULL;
+END
+$$;
+
+CREATE FUNCTION vehicles_log_status_delete() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO vehicle_status_changes (vehicle_id, from_status, to_status, changed_at)
+    SELECT id, status, NULL, clock_timestamp() FROM deleted_vehicles;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER vehicles_log_status_insert
+    AFTER INSERT ON vehicles
+    REFERENCING NEW TABLE AS inserted_vehicles
+    FOR EACH STATEMENT EXECUTE FUNCTION vehicles_log_status_insert();
+
+CREATE TRIGGER vehicles_log_status_update
+    AFTER UPDATE ON vehicles
+    REFERENCING OLD TABLE AS old_vehicles NEW TABLE AS new_vehicles
+    FOR EACH STATEMENT EXECUTE FUNCTION vehicles_log_status_update();
+
+CREATE TRIGGER vehicles_log_status_delete
+    AFTER DELETE ON vehicles
+    REFERENCING OLD TABLE AS deleted_vehicles
+    FOR EACH STATEMENT EXECUTE FUNCTION vehicles_log_status_delete();
+
+-- Earlier transitions were not recorded: every existing vehicle counts as having had its current status since it
+-- was created
+INSERT INTO vehicle_status_changes (vehicle_id, from_status, to_status, changed_at)
+SELECT id, NULL, status, created_at::timestamptz
+FROM vehicles
+ORDER BY created_at;
+
+-- One row per completed UTC day and status, derived from the log by the service: the vehicles in the status at the
+-- end of the day, the vehicle-seconds spent in it during the day, and the transitions into it. A point in time is
+-- the previous day's row plus at most a day of transitions; a period is a sum over its days.
+CREATE TABLE vehicle_status_days (
+    day DATE NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    vehicles BIGINT NOT NULL,
+    vehicle_seconds DOUBLE PRECISION NOT NULL,
+    entries BIGINT NOT NULL,
+    PRIMARY KEY (day, status)
+);
@@ -0,0 +1,10 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Normalized haystack for GET /vehicles?q=. Fields are joined with a unit separator
+-- so a query never matches across two columns, same as the per-column LIKE it replaces.
+ALTER TABLE vehicles
+    ADD COLUMN search_text TEXT GENERATED ALWAYS AS (
+        lower(plate_number || E'\x1f' || vin || E'\x1f' || brand || E'\x1f' || model)
+    ) STORED;
+
+CREATE INDEX idx_vehicles_search_text_trgm ON vehicles USING GIN (search_text gin_trgm_ops);
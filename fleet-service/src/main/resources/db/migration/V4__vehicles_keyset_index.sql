@@ -0,0 +1,2 @@
+-- Seek index for cursor pagination of GET /vehicles: ORDER BY created_at, id in either direction.
+CREATE INDEX idx_vehicles_created_at_id ON vehicles (created_at, id);
@@ -0,0 +1,2 @@
+-- Optimistic-locking version of a vehicle row, exposed as its ETag. Every write increments it.
+ALTER TABLE vehicles ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Time-ordered UUID (RFC 9562 version 7) for keys generated in SQL, e.g. by the bulk import.
+-- Same layout as UuidV7 in the service: 48-bit Unix millis, then version 7 and random bits. It is ordered by
+-- millisecond only; PostgreSQL 18 ships uuidv7() with sub-millisecond ordering and can replace this.
+CREATE FUNCTION uuid_generate_v7() RETURNS uuid
+    LANGUAGE sql VOLATILE PARALLEL SAFE AS
+$$
+SELECT encode(
+    -- turn the v4 version nibble 0100 into 0111
+    set_bit(set_bit(
+        overlay(uuid_send(gen_random_uuid())
+                PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                FROM 1 FOR 6),
+        52, 1), 53, 1),
+    'hex')::uuid
+$$;
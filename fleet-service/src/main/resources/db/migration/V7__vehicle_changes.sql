@@ -0,0 +1,51 @@
+-- Change feed for GET /vehicles/changes. Every insert and update stamps the row with the id of its transaction,
+-- and every delete leaves a tombstone stamped the same way, whichever code path wrote it. Rows that existed
+-- before this migration count as changed by transaction 1, so a full sync still returns them.
+ALTER TABLE vehicles ADD COLUMN change_xid xid8 NOT NULL DEFAULT '1';
+ALTER TABLE vehicles ALTER COLUMN change_xid DROP DEFAULT;
+
+CREATE FUNCTION vehicles_stamp_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.change_xid := pg_current_xact_id();
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER vehicles_stamp_change
+    BEFORE INSERT OR UPDATE ON vehicles
+    FOR EACH ROW EXECUTE FUNCTION vehicles_stamp_change();
+
+CREATE TABLE vehicle_tombstones (
+    id UUID PRIMARY KEY,
+    change_xid xid8 NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+CREATE FUNCTION vehicles_leave_tombstone() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO vehicle_tombstones (id, change_xid, deleted_at)
+    VALUES (OLD.id, pg_current_xact_id(), localtimestamp)
+    ON CONFLICT (id) DO UPDATE SET change_xid = EXCLUDED.change_xid, deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END
+$$;
+
+CREATE TRIGGER vehicles_leave_tombstone
+    AFTER DELETE ON vehicles
+    FOR EACH ROW EXECUTE FUNCTION vehicles_leave_tombstone();
+
+-- Seek indexes for reading the feed in (change_xid, id) order
+CREATE INDEX idx_vehicles_change_xid_id ON vehicles (change_xid, id);
+CREATE INDEX idx_vehicle_tombstones_change_xid_id ON vehicle_tombstones (change_xid, id);
+-- Compaction deletes tombstones by age
+CREATE INDEX idx_vehicle_tombstones_deleted_at ON vehicle_tombstones (deleted_at);
+
+-- Highest change_xid among compacted tombstones: a client that synced before it may have missed deletes
+CREATE TABLE vehicle_change_horizon (
+    tombstones_compacted_through xid8 NOT NULL
+);
+INSERT INTO vehicle_change_horizon VALUES ('0');
@@ -0,0 +1,18 @@
+-- Telemetry readings posted to POST /telemetry, range-partitioned by the day they were recorded (UTC). The service
+-- creates the partitions of the coming days and drops those past the retention; readings outside every daily
+-- partition, such as ones buffered by a device for longer than the retention, land in the default partition.
+-- There is no foreign key to vehicles: the service checks the vehicle on ingest, and readings outlive deleted vehicles.
+CREATE TABLE vehicle_telemetry (
+    vehicle_id UUID NOT NULL,
+    recorded_at TIMESTAMPTZ NOT NULL,
+    received_at TIMESTAMPTZ NOT NULL,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    odometer_km DOUBLE PRECISION,
+    fuel_level REAL
+) PARTITION BY RANGE (recorded_at);
+
+CREATE TABLE vehicle_telemetry_default PARTITION OF vehicle_telemetry DEFAULT;
+
+-- A vehicle's readings over a time range
+CREATE INDEX idx_vehicle_telemetry_vehicle_recorded_at ON vehicle_telemetry (vehicle_id, recorded_at);
@@ -0,0 +1,17 @@
+-- Last known position of every vehicle that has reported one. The service keeps the positions in memory, writes the
+-- vehicles that moved every few seconds and loads the table at startup. Deleting a vehicle deletes its position.
+-- Rows are only ever updated in place, and no indexed column changes, so the free space of a lower fill factor keeps
+-- the updates HOT.
+CREATE TABLE vehicle_positions (
+    vehicle_id UUID PRIMARY KEY REFERENCES vehicles (id) ON DELETE CASCADE,
+    latitude DOUBLE PRECISION NOT NULL,
+    longitude DOUBLE PRECISION NOT NULL,
+    recorded_at TIMESTAMPTZ NOT NULL
+) WITH (fillfactor = 70);
+
+INSERT INTO vehicle_positions (vehicle_id, latitude, longitude, recorded_at)
+SELECT DISTINCT ON (t.vehicle_id) t.vehicle_id, t.latitude, t.longitude, t.recorded_at
+FROM vehicle_telemetry t
+JOIN vehicles v ON v.id = t.vehicle_id
+WHERE t.latitude IS NOT NULL
+ORDER BY t.vehicle_id, t.recorded_at DESC;
@@ -0,0 +1,126 @@
+package com.msitek.fleet.fleetservice.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection replicaConnection = Mockito.mock(Connection.class);
+    private final DataSource primary = Mockito.mock(DataSource.class);
+    private final DataSource replica = Mockito.mock(DataSource.class);
+
+    private ReplicaMonitor monitor;
+    private RecentWrites recentWrites;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        Mockito.when(replica.getConnection()).thenReturn(replicaConnection);
+        monitor = new ReplicaMonitor(primary, replica, Duration.ofSeconds(5));
+        recentWrites = new RecentWrites(100, Duration.ofMinutes(1));
+        dataSource = new ReadWriteRoutingDataSource(primary, replica, monitor, recentWrites);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("admin", null, null));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+        monitor.close();
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToCaughtUpReplica() throws SQLException {
+        monitor.update(System.nanoTime(), 100, 100);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimaryUntilReplicaCatchesUp() throws SQLException {
+        monitor.update(System.nanoTime(), 100, 100);
+        dataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        // Other clients have not written, but cache loads must see every write
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("other", null, null));
+        assertSame(replicaConnection, dataSource.getConnection());
+        assertSame(primaryConnection, ReplicaReads.latest(() -> getConnection(dataSource)));
+
+        monitor.update(System.nanoTime(), 200, 200);
+        assertSame(replicaConnection, ReplicaReads.latest(() -> getConnection(dataSource)));
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaFails() throws SQLException {
+        monitor.update(System.nanoTime(), 100, 100);
+        Mockito.when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertFalse(monitor.canServe(RecentWrites.NONE));
+    }
+
+    @Test
+    void shouldMeasureLagFromNewestPollTheReplicaHasReached() {
+        long start = System.nanoTime();
+        monitor.update(start, 100, 100);
+        assertTrue(monitor.canServe(RecentWrites.NONE));
+
+        // Stuck at 100 while the primary moves on: lagging once the poll at 100 is older than max-lag
+        monitor.update(start + 2 * SECOND, 200, 100);
+        assertTrue(monitor.canServe(RecentWrites.NONE));
+        assertFalse(monitor.canServe(start + SECOND));
+        monitor.update(start + 6 * SECOND, 300, 100);
+        assertFalse(monitor.canServe(RecentWrites.NONE));
+
+        monitor.update(start + 7 * SECOND, 400, 300);
+        assertTrue(monitor.canServe(start + 6 * SECOND));
+        assertFalse(monitor.canServe(start + 7 * SECOND));
+    }
+
+    @Test
+    void shouldNotServeBeforeFirstPollOrBehindWholeWindow() {
+        assertFalse(monitor.canServe(RecentWrites.NONE));
+
+        monitor.update(System.nanoTime(), 100, 50);
+        assertFalse(monitor.canServe(RecentWrites.NONE));
+    }
+
+    private static Connection getConnection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.msitek.fleet.fleetservice.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Test {
+
+    @Test
+    void shouldEncodeVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7.generate();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertTrue(id.getMostSignificantBits() >>> 16 >= before);
+    }
+
+    @Test
+    void shouldBeUniqueAndIncreasingPerThreadUnderContention() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+
+        List<Callable<List<UUID>>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(() -> {
+                List<UUID> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(UuidV7.generate());
+                }
+                return ids;
+            });
+        }
+
+        Set<UUID> all = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<List<UUID>> result : executor.invokeAll(tasks)) {
+                List<UUID> ids = result.get();
+                List<UUID> sorted = new ArrayList<>(ids);
+                sorted.sort(Comparator.naturalOrder());
+                assertEquals(sorted, ids);
+                all.addAll(ids);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, all.size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.msitek.fleet.fleetservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingAuthenticationProviderTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                verifications.incrementAndGet();
+                return super.matches(rawPassword, encodedPassword);
+            }
+        };
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider(encoder);
+        dao.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername("admin").password(encoder.encode("admin")).roles("ADMIN").build(),
+                User.withUsername("admi").password(encoder.encode("nadmin")).roles("USER").build()
+        ));
+        provider = new CachingAuthenticationProvider(dao, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldVerifyPasswordOnceWhileCached() {
+        for (int i = 0; i < 3; i++) {
+            Authentication result = provider.authenticate(token("admin", "admin"));
+
+            assertTrue(result.isAuthenticated());
+            assertEquals("admin", result.getName());
+            assertEquals("[ROLE_ADMIN]", result.getAuthorities().toString());
+        }
+
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void shouldVerifyEveryFailedAttempt() {
+        provider.authenticate(token("admin", "admin"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("admin", "wrong")));
+        }
+
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void shouldNotMixUpUsernameAndPasswordBoundary() {
+        provider.authenticate(token("admin", "admin"));
+
+        Authentication other = provider.authenticate(token("admi", "nadmin"));
+
+        assertEquals("admi", other.getName());
+        assertEquals(2, verifications.get());
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
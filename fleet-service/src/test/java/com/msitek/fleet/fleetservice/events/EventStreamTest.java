@@ -0,0 +1,163 @@
+package com.msitek.fleet.fleetservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class EventStreamTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private EventStream eventStream;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler.setPoolSize(2);
+        taskScheduler.initialize();
+        eventStream = new EventStream(new ObjectMapper(), taskScheduler, BUFFER_SIZE, Duration.ofHours(1),
+                Duration.ofSeconds(3));
+        eventStream.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventStream.close();
+        taskScheduler.shutdown();
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void shouldSendEventsToEverySubscriberOnceCommitted() throws Exception {
+        Connection first = connect(true);
+        Connection second = connect(true);
+        assertEquals("retry: 3000\n\n", first.out.content());
+
+        TransactionSynchronizationManager.initSynchronization();
+        eventStream.publishAfterCommit("vehicle-updated", Map.of("plateNumber", "KR12345"));
+        Thread.sleep(50);
+        assertEquals("retry: 3000\n\n", first.out.content());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        String event = "event: vehicle-updated\ndata: {\"plateNumber\":\"KR12345\"}\n\n";
+        await(() -> first.out.content().endsWith(event) && second.out.content().endsWith(event));
+        assertTrue(first.out.flushes > 0);
+    }
+
+    @Test
+    void shouldDisconnectSubscriberThatStopsReading() throws Exception {
+        Connection reading = connect(true);
+        Connection stalled = connect(false);
+
+        for (int i = 0; i < BUFFER_SIZE + 1; i++) {
+            eventStream.publish("vehicle-deleted", Map.of("id", i));
+        }
+
+        await(() -> reading.out.content().contains("\"id\":" + BUFFER_SIZE));
+        Mockito.verify(stalled.context, Mockito.timeout(1000)).complete();
+        Mockito.verify(reading.context, Mockito.never()).complete();
+        assertEquals(1, meterRegistry.get("fleet.events.subscribers").gauge().value());
+        assertEquals(1, meterRegistry.get("fleet.events.dropped").functionCounter().count());
+        assertFalse(stalled.out.content().contains("event:"));
+    }
+
+    private Connection connect(boolean reading) throws IOException {
+        FakeOutputStream out = new FakeOutputStream(reading);
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        AsyncContext context = Mockito.mock(AsyncContext.class);
+        Mockito.when(request.startAsync(request, response)).thenReturn(context);
+        Mockito.when(context.getResponse()).thenReturn(response);
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        eventStream.subscribe(request, response);
+        return new Connection(context, out);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Condition not met in time");
+    }
+
+    private record Connection(AsyncContext context, FakeOutputStream out) {}
+
+    /**
+     * A connection that accepts every write, or none; like a container, it calls the listener once it is set.
+     */
+    private static final class FakeOutputStream extends ServletOutputStream {
+
+        private final boolean ready;
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private volatile int flushes;
+
+        FakeOutputStream(boolean ready) {
+            this.ready = ready;
+        }
+
+        synchronized String content() {
+            return written.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            if (ready) {
+                try {
+                    listener.onWritePossible();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            written.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            written.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.msitek.fleet.fleetservice.history.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.history.service.VehicleStatusDays;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VehicleStatusHistoryIntegrationTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VehicleLookupCache vehicleLookupCache;
+
+    @Autowired
+    private VehicleStatusDays vehicleStatusDays;
+
+    @BeforeEach
+    void cleanDatabase() {
+        jdbcTemplate.execute("DELETE FROM vehicle_telemetry");
+        jdbcTemplate.execute("DELETE FROM vehicles");
+        jdbcTemplate.execute("DELETE FROM vehicle_status_changes");
+        jdbcTemplate.execute("DELETE FROM vehicle_status_days");
+        vehicleLookupCache.clear();
+    }
+
+    @Test
+    void shouldLogStatusTransitionsOfEveryWrite() throws Exception {
+        String id = createVehicle();
+        updateVehicle(id, "HS00001", VehicleStatus.IN_SERVICE);
+        // no transition
+        updateVehicle(id, "HS00002", VehicleStatus.IN_SERVICE);
+        updateVehicle(id, "HS00002", VehicleStatus.SOLD);
+        mockMvc.perform(delete("/vehicles/" + id).with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/vehicles/" + id + "/status-history").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicleId").value(id))
+                .andExpect(jsonPath("$.changes.length()").value(4))
+                .andExpect(jsonPath("$.changes[0].fromStatus").doesNotExist())
+                .andExpect(jsonPath("$.changes[0].toStatus").value("ACTIVE"))
+                .andExpect(jsonPath("$.changes[1].fromStatus").value("ACTIVE"))
+                .andExpect(jsonPath("$.changes[1].toStatus").value("IN_SERVICE"))
+                .andExpect(jsonPath("$.changes[2].fromStatus").value("IN_SERVICE"))
+                .andExpect(jsonPath("$.changes[2].toStatus").value("SOLD"))
+                .andExpect(jsonPath("$.changes[3].fromStatus").value("SOLD"))
+                .andExpect(jsonPath("$.changes[3].toStatus").doesNotExist());
+
+        mockMvc.perform(get("/vehicles/" + UUID.randomUUID() + "/status-history").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldAnswerPointInTimeAndPeriodQueriesFromTheLogAndTheDailyRows() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        logChange(first, null, "ACTIVE", "2025-01-01T00:00:00Z");
+        logChange(third, null, "SOLD", "2025-01-02T00:00:00Z");
+        logChange(second, null, "IN_SERVICE", "2025-01-02T06:00:00Z");
+        logChange(first, "ACTIVE", "IN_SERVICE", "2025-01-03T12:00:00Z");
+        logChange(second, "IN_SERVICE", null, "2025-01-04T18:00:00Z");
+        logChange(first, "IN_SERVICE", "ACTIVE", "2025-01-05T12:00:00Z");
+
+        // the same answers straight from the log and from the daily rows
+        assertHistoryQueries();
+        vehicleStatusDays.maintain();
+        assertHistoryQueries();
+    }
+
+    @Test
+    void shouldCountTransitionsLoggedAfterTheirDayWasSummedUp() throws Exception {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        UUID vehicle = UUID.randomUUID();
+        logChange(vehicle, null, "ACTIVE", today.minusDays(3) + "T06:00:00Z");
+        vehicleStatusDays.maintain();
+
+        // committed by a transaction that ran over midnight, after the day was summed up
+        logChange(vehicle, "ACTIVE", "IN_SERVICE", today.minusDays(2) + "T23:59:00Z");
+        vehicleStatusDays.maintain();
+
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", today.minusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byStatus.ACTIVE").value(0))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(1));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT vehicles FROM vehicle_status_days "
+                + "WHERE status = 'IN_SERVICE' AND day = (SELECT max(day) FROM vehicle_status_days)", Long.class));
+    }
+
+    @Test
+    void shouldRejectInvalidTimes() throws Exception {
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", "2025-13-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", Instant.now().plusSeconds(3600).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/vehicles/status-history/durations")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/vehicles/status-history/durations")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("from", "2025-01-05")
+                        .param("to", "2025-01-02"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertHistoryQueries() throws Exception {
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", "2025-01-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.at").value("2025-01-04T00:00:00Z"))
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byStatus.ACTIVE").value(0))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(2))
+                .andExpect(jsonPath("$.byStatus.SOLD").value(1));
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", "2025-01-04T20:00:00Z"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(1))
+                .andExpect(jsonPath("$.byStatus.SOLD").value(1));
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", "2025-06-01"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byStatus.ACTIVE").value(1))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(0));
+        mockMvc.perform(get("/vehicles/status-history/composition")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("at", "2024-12-31"))
+                .andExpect(jsonPath("$.total").value(0));
+
+        // partial first day, two whole days
+        mockMvc.perform(get("/vehicles/status-history/durations")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("from", "2025-01-02T12:00:00Z")
+                        .param("to", "2025-01-05"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE.vehicleDays").value(3.75))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE.stints").value(2))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE.averageDays").value(1.875))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.vehicleDays").value(1.0))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.stints").value(1))
+                .andExpect(jsonPath("$.byStatus.SOLD.vehicleDays").value(2.5));
+        // within a single day
+        mockMvc.perform(get("/vehicles/status-history/durations")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("from", "2025-01-05T06:00:00Z")
+                        .param("to", "2025-01-05T18:00:00Z"))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.vehicleDays").value(0.25))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.stints").value(1))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE.vehicleDays").value(0.25))
+                .andExpect(jsonPath("$.byStatus.SOLD.vehicleDays").value(0.5));
+        // before the first transition
+        mockMvc.perform(get("/vehicles/status-history/durations")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("from", "2024-12-01")
+                        .param("to", "2024-12-31"))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.vehicleDays").value(0.0))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.stints").value(0))
+                .andExpect(jsonPath("$.byStatus.ACTIVE.averageDays").doesNotExist());
+    }
+
+    private void logChange(UUID vehicleId, String fromStatus, String toStatus, String changedAt) {
+        jdbcTemplate.update(
+                "INSERT INTO vehicle_status_changes (vehicle_id, from_status, to_status, changed_at) VALUES (?, ?, ?, ?)",
+                vehicleId, fromStatus, toStatus, Timestamp.from(Instant.parse(changedAt)));
+    }
+
+    private String createVehicle() throws Exception {
+        CreateVehicleRequest request = new CreateVehicleRequest("HS00001", "HSVIN000000000001", "Toyota", "Corolla",
+                2022, VehicleStatus.ACTIVE);
+        String response = mockMvc.perform(post("/vehicles")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+
+    private void updateVehicle(String id, String plate, VehicleStatus status) throws Exception {
+        UpdateVehicleRequest request = new UpdateVehicleRequest(plate, "HSVIN000000000001", "Toyota", "Corolla", 2022,
+                status);
+        mockMvc.perform(put("/vehicles/" + id)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,166 @@
+package com.msitek.fleet.fleetservice.position.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VehiclePositionIntegrationTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VehicleLookupCache vehicleLookupCache;
+
+    @BeforeEach
+    void cleanDatabase() {
+        jdbcTemplate.execute("DELETE FROM vehicle_telemetry");
+        jdbcTemplate.execute("DELETE FROM vehicles");
+        vehicleLookupCache.clear();
+    }
+
+    @Test
+    void shouldServeLatestPositionsAndFollowStatusChangesAndDeletions() throws Exception {
+        // a corner of the Pacific no other test reports from
+        String near = createVehicle("PX00001", "PXVIN000000000001");
+        String far = createVehicle("PX00002", "PXVIN000000000002");
+        Instant now = Instant.now();
+        sendReadings(List.of(
+                Map.of("vehicleId", near, "recordedAt", now.minusSeconds(60).toString(), "latitude", -30.5, "longitude", -140.5),
+                Map.of("vehicleId", near, "recordedAt", now.toString(), "latitude", -30.01, "longitude", -140.01),
+                Map.of("vehicleId", far, "recordedAt", now.toString(), "latitude", -30.2, "longitude", -140.2)
+        ));
+        awaitPositions("/positions/nearest?latitude=-30&longitude=-140&radiusKm=50", 2);
+
+        mockMvc.perform(get("/positions/nearest")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("latitude", "-30")
+                        .param("longitude", "-140")
+                        .param("radiusKm", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.positions[*].vehicleId").value(contains(near, far)))
+                .andExpect(jsonPath("$.positions[0].latitude").value(-30.01))
+                .andExpect(jsonPath("$.positions[0].status").value("ACTIVE"))
+                .andExpect(jsonPath("$.truncated").value(false));
+
+        UpdateVehicleRequest update = new UpdateVehicleRequest("PX00002", "PXVIN000000000002", "Toyota", "Corolla", 2022,
+                VehicleStatus.IN_SERVICE);
+        mockMvc.perform(put("/vehicles/" + far)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/positions")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("minLatitude", "-31")
+                        .param("minLongitude", "-141")
+                        .param("maxLatitude", "-29")
+                        .param("maxLongitude", "-139")
+                        .param("status", "IN_SERVICE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.positions[*].vehicleId").value(contains(far)))
+                .andExpect(jsonPath("$.positions[0].distanceKm").doesNotExist());
+
+        mockMvc.perform(delete("/vehicles/" + near).with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/positions/nearest")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("latitude", "-30")
+                        .param("longitude", "-140")
+                        .param("radiusKm", "50"))
+                .andExpect(jsonPath("$.positions[*].vehicleId").value(contains(far)));
+    }
+
+    @Test
+    void shouldRejectInvalidQueries() throws Exception {
+        mockMvc.perform(get("/positions/nearest")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("latitude", "91")
+                        .param("longitude", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/positions/nearest")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("latitude", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/positions/nearest")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .param("latitude", "0")
+                        .param("longitude", "0")
+                        .param("status", "PARKED"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void sendReadings(List<Map<String, Object>> readings) throws Exception {
+        mockMvc.perform(post("/telemetry")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("readings", readings))))
+                .andExpect(status().isAccepted());
+    }
+
+    private void awaitPositions(String uri, int expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            String response = mockMvc.perform(get(uri).with(httpBasic(USERNAME, PASSWORD)))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            if (objectMapper.readTree(response).get("positions").size() == expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Expected " + expected + " positions from " + uri);
+    }
+
+    private String createVehicle(String plate, String vin) throws Exception {
+        CreateVehicleRequest request = new CreateVehicleRequest(plate, vin, "Toyota", "Corolla", 2022, VehicleStatus.ACTIVE);
+        String response = mockMvc.perform(post("/vehicles")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+}
@@ -0,0 +1,123 @@
+package com.msitek.fleet.fleetservice.position.service;
+
+import com.msitek.fleet.fleetservice.position.domain.VehiclePosition;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionIndexTest {
+
+    private static final Instant T0 = Instant.parse("2026-03-01T12:00:00Z");
+
+    @Test
+    void shouldFindTheSameNearestVehiclesAsAFullScan() {
+        PositionIndex index = new PositionIndex(0.05);
+        List<VehiclePosition> all = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // a dense city and a sparse region around it
+            double spread = i % 5 == 0 ? 5 : 0.3;
+            VehiclePosition position = position(50 + random.nextGaussian() * spread, 20 + random.nextGaussian() * spread,
+                    VehicleStatus.values()[random.nextInt(3)], T0);
+            all.add(position);
+            index.update(position);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = 50 + random.nextGaussian() * 2;
+            double longitude = 20 + random.nextGaussian() * 2;
+            Set<VehicleStatus> statuses = query % 2 == 0 ? Set.of() : Set.of(VehicleStatus.SOLD);
+            double radiusKm = query % 3 == 0 ? 25 : Double.POSITIVE_INFINITY;
+
+            List<UUID> expected = all.stream()
+                    .filter(p -> statuses.isEmpty() || statuses.contains(p.status()))
+                    .filter(p -> PositionIndex.distanceKm(latitude, longitude, p.latitude(), p.longitude()) <= radiusKm)
+                    .sorted(Comparator.comparingDouble(p -> PositionIndex.distanceKm(latitude, longitude, p.latitude(), p.longitude())))
+                    .limit(10)
+                    .map(VehiclePosition::vehicleId)
+                    .toList();
+            List<UUID> found = index.nearest(latitude, longitude, radiusKm, statuses, 10).positions().stream()
+                    .map(VehiclePosition::vehicleId)
+                    .toList();
+            assertEquals(expected, found, "query " + query);
+        }
+    }
+
+    @Test
+    void shouldReturnVehiclesInsideTheBoxWithTheGivenStatus() {
+        PositionIndex index = new PositionIndex(0.05);
+        VehiclePosition inside = position(50.05, 19.95, VehicleStatus.ACTIVE, T0);
+        VehiclePosition insideInService = position(50.08, 19.99, VehicleStatus.IN_SERVICE, T0);
+        VehiclePosition outside = position(50.2, 19.95, VehicleStatus.ACTIVE, T0);
+        List.of(inside, insideInService, outside).forEach(index::update);
+
+        assertEquals(Set.of(inside.vehicleId(), insideInService.vehicleId()),
+                ids(index.within(50, 19.9, 50.1, 20, Set.of(), 10)));
+        assertEquals(Set.of(inside.vehicleId()),
+                ids(index.within(50, 19.9, 50.1, 20, Set.of(VehicleStatus.ACTIVE), 10)));
+
+        PositionIndex.Hits limited = index.within(50, 19.9, 50.1, 20, Set.of(), 1);
+        assertEquals(1, limited.positions().size());
+        assertTrue(limited.truncated());
+        assertFalse(index.within(-90, -180, 90, 180, Set.of(), 10).truncated());
+        assertEquals(3, index.within(-90, -180, 90, 180, Set.of(), 10).positions().size());
+    }
+
+    @Test
+    void shouldHandleBoxesAndNeighboursAcrossTheAntimeridian() {
+        PositionIndex index = new PositionIndex(1);
+        VehiclePosition east = position(0, 179.9, VehicleStatus.ACTIVE, T0);
+        VehiclePosition west = position(0, -179.9, VehicleStatus.ACTIVE, T0);
+        VehiclePosition greenwich = position(0, 0, VehicleStatus.ACTIVE, T0);
+        List.of(east, west, greenwich).forEach(index::update);
+
+        assertEquals(Set.of(east.vehicleId(), west.vehicleId()),
+                ids(index.within(-1, 179, 1, -179, Set.of(), 10)));
+        assertEquals(List.of(west.vehicleId(), east.vehicleId()),
+                index.nearest(0, -179.95, 100, Set.of(), 10).positions().stream().map(VehiclePosition::vehicleId).toList());
+    }
+
+    @Test
+    void shouldMoveVehiclesAndIgnoreOlderPositions() {
+        PositionIndex index = new PositionIndex(0.05);
+        UUID id = UUID.randomUUID();
+        index.update(new VehiclePosition(id, 50, 20, T0, VehicleStatus.ACTIVE));
+        index.update(new VehiclePosition(id, 52, 21, T0.plusSeconds(10), VehicleStatus.ACTIVE));
+        index.update(new VehiclePosition(id, 10, 10, T0.plusSeconds(5), VehicleStatus.ACTIVE));
+
+        assertEquals(1, index.size());
+        assertEquals(1, index.occupiedCells());
+        assertEquals(52, index.get(id).latitude());
+
+        index.updateStatus(id, VehicleStatus.IN_SERVICE);
+        assertEquals(Set.of(id), ids(index.within(51, 20, 53, 22, Set.of(VehicleStatus.IN_SERVICE), 10)));
+        assertEquals(Set.of(), ids(index.within(51, 20, 53, 22, Set.of(VehicleStatus.ACTIVE), 10)));
+
+        index.remove(id);
+        assertNull(index.get(id));
+        assertEquals(0, index.occupiedCells());
+    }
+
+    private static Set<UUID> ids(PositionIndex.Hits hits) {
+        Set<UUID> ids = new HashSet<>();
+        hits.positions().forEach(position -> ids.add(position.vehicleId()));
+        return ids;
+    }
+
+    private static VehiclePosition position(double latitude, double longitude, VehicleStatus status, Instant recordedAt) {
+        return new VehiclePosition(UUID.randomUUID(), latitude, longitude, recordedAt, status);
+    }
+}
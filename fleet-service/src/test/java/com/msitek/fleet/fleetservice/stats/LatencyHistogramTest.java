@@ -0,0 +1,41 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldBoundBucketErrorBySubBucketWidth() {
+        int previous = -1;
+        for (long micros = 0; micros < 10_000_000; micros += 1 + micros / 100) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            long upper = LatencyHistogram.upperBound(bucket);
+
+            assertTrue(bucket >= previous, "buckets must not decrease at " + micros);
+            assertTrue(upper >= micros && upper - micros <= micros / 16, "bucket too wide at " + micros);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldReportPercentilesAndResetInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(true);
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500, snapshot.mean(), 0.001);
+        assertEquals(1_000_000, snapshot.maxMicros());
+        assertEquals(500_000, snapshot.percentile(0.5), 500_000 / 16.0);
+        assertEquals(990_000, snapshot.percentile(0.99), 990_000 / 16.0);
+        assertEquals(1_000_000, snapshot.percentile(1.0));
+        assertEquals(0, histogram.snapshot(false).count());
+    }
+}
@@ -0,0 +1,36 @@
+package com.msitek.fleet.fleetservice.stats;
+
+import com.msitek.fleet.fleetservice.stats.dto.RequestRate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateWindowTest {
+
+    @Test
+    void shouldAverageCompleteSecondsSinceStartup() {
+        RateWindow window = new RateWindow(2);
+        increment(window, 0, 10);
+        increment(window, 59, 5);
+        increment(window, 100, 3);
+        increment(window, 160, 7);
+
+        assertEquals(new RequestRate(0.05, 0.113, 0.113), window.rates(160));
+    }
+
+    @Test
+    void shouldRecycleSlotsAfterFifteenMinutes() {
+        RateWindow window = new RateWindow(1);
+        increment(window, 5, 100);
+        increment(window, 5 + 901, 2);
+        increment(window, 5, 1);
+
+        assertEquals(new RequestRate(0.033, 0.007, 0.002), window.rates(5 + 902));
+    }
+
+    private static void increment(RateWindow window, long second, int times) {
+        for (int i = 0; i < times; i++) {
+            window.increment(second);
+        }
+    }
+}
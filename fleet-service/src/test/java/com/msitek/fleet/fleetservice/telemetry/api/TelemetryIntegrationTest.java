@@ -0,0 +1,145 @@
+package com.msitek.fleet.fleetservice.telemetry.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.telemetry.service.TelemetryPartitions;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TelemetryIntegrationTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VehicleLookupCache vehicleLookupCache;
+
+    @Autowired
+    private TelemetryPartitions telemetryPartitions;
+
+    @BeforeEach
+    void cleanDatabase() {
+        jdbcTemplate.execute("DELETE FROM vehicle_telemetry");
+        jdbcTemplate.execute("DELETE FROM vehicles");
+        vehicleLookupCache.clear();
+    }
+
+    @Test
+    void shouldWriteValidReadingsIntoTodaysPartitionAndReportTheOthers() throws Exception {
+        String id = createVehicle("KR12345", "VIN00000000000001");
+        createVehicle("KR12346", "VIN00000000000002");
+        Instant now = Instant.now();
+
+        List<Map<String, Object>> readings = List.of(
+                Map.of("vehicleId", id, "recordedAt", now.toString(), "latitude", 50.06, "longitude", 19.94),
+                Map.of("vin", "VIN00000000000002", "recordedAt", now.toString(), "odometerKm", 1234.5, "fuelLevel", 40),
+                Map.of("vin", "VIN00000000000099", "recordedAt", now.toString()),
+                Map.of("recordedAt", now.toString()),
+                Map.of("vehicleId", id, "recordedAt", now.toString(), "latitude", 50.06),
+                Map.of("vehicleId", id, "recordedAt", now.plus(Duration.ofHours(1)).toString()),
+                Map.of("vehicleId", id, "recordedAt", now.toString(), "fuelLevel", 120),
+                Map.of("vehicleId", id, "recordedAt", "1970-01-01T00:00:00Z")
+        );
+
+        mockMvc.perform(post("/telemetry")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("readings", readings))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejections[*].index").value(contains(2, 3, 4, 5, 6, 7)))
+                .andExpect(jsonPath("$.rejections[0].reason").value("Unknown vehicle: VIN00000000000099"))
+                .andExpect(jsonPath("$.rejections[4].reason").value(startsWith("fuelLevel")))
+                .andExpect(jsonPath("$.rejections[5].reason").value(startsWith("recordedAt is older than")));
+
+        awaitRows(2);
+        String todaysPartition = "vehicle_telemetry_" + LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.BASIC_ISO_DATE);
+        assertEquals(List.of(todaysPartition), jdbcTemplate.queryForList(
+                "SELECT DISTINCT tableoid::regclass::text FROM vehicle_telemetry", String.class));
+        assertEquals(1234.5, jdbcTemplate.queryForObject(
+                "SELECT odometer_km FROM vehicle_telemetry WHERE latitude IS NULL", Double.class));
+    }
+
+    @Test
+    void shouldDeleteReadingsPastRetentionFromDefaultPartition() {
+        jdbcTemplate.update("INSERT INTO vehicle_telemetry_default (vehicle_id, recorded_at, received_at) "
+                + "VALUES (gen_random_uuid(), '2000-01-01 00:00+00', now())");
+
+        telemetryPartitions.maintain();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM vehicle_telemetry_default", Long.class));
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/telemetry")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"readings\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void awaitRows(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        long rows = 0;
+        while (System.nanoTime() < deadline) {
+            rows = jdbcTemplate.queryForObject("SELECT count(*) FROM vehicle_telemetry", Long.class);
+            if (rows == expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Expected " + expected + " telemetry rows, found " + rows);
+    }
+
+    private String createVehicle(String plate, String vin) throws Exception {
+        CreateVehicleRequest request = new CreateVehicleRequest(plate, vin, "Toyota", "Corolla", 2022, VehicleStatus.ACTIVE);
+        String response = mockMvc.perform(post("/vehicles")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+}
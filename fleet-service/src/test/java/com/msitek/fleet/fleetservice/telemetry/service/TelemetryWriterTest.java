@@ -0,0 +1,91 @@
+package com.msitek.fleet.fleetservice.telemetry.service;
+
+import com.msitek.fleet.fleetservice.position.service.VehiclePositions;
+import com.msitek.fleet.fleetservice.telemetry.domain.TelemetryReading;
+import com.msitek.fleet.fleetservice.telemetry.exception.TelemetryQueueFullException;
+import com.msitek.fleet.fleetservice.telemetry.repository.TelemetryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryWriterTest {
+
+    private static final int QUEUE_CAPACITY = 6;
+
+    private final TelemetryRepository repository = Mockito.mock(TelemetryRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> groups = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstCopyStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstCopy = new CountDownLatch(1);
+    private TelemetryWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(repository.copy(Mockito.anyList())).thenAnswer(invocation -> {
+            List<?> group = invocation.getArgument(0);
+            groups.add(group.size());
+            firstCopyStarted.countDown();
+            releaseFirstCopy.await();
+            return (long) group.size();
+        });
+        writer = new TelemetryWriter(repository, Mockito.mock(VehiclePositions.class), meterRegistry, QUEUE_CAPACITY, 4);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstCopy.countDown();
+        writer.close();
+    }
+
+    @Test
+    void shouldGroupBatchesQueuedDuringAWriteAndRefuseWhatDoesNotFit() throws Exception {
+        writer.enqueue(readings(2));
+        assertTrue(firstCopyStarted.await(1, TimeUnit.SECONDS));
+
+        // the first write is stuck: these wait, still counted against the capacity
+        writer.enqueue(readings(1));
+        writer.enqueue(readings(2));
+        assertThrows(TelemetryQueueFullException.class, () -> writer.enqueue(readings(2)));
+        writer.enqueue(readings(1));
+        assertEquals(QUEUE_CAPACITY, meterRegistry.get("fleet.telemetry.queued.readings").gauge().value());
+
+        releaseFirstCopy.countDown();
+        awaitWritten(6);
+        // what queued up meanwhile is written together
+        assertEquals(List.of(2, 4), groups);
+        assertEquals(0, meterRegistry.get("fleet.telemetry.queued.readings").gauge().value());
+        assertEquals(6, meterRegistry.get("fleet.telemetry.lag").tag("stage", "pipeline").timer().count());
+    }
+
+    private void awaitWritten(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (meterRegistry.get("fleet.telemetry.written").functionCounter().count() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, meterRegistry.get("fleet.telemetry.written").functionCounter().count());
+    }
+
+    private static List<TelemetryReading> readings(int count) {
+        Instant now = Instant.now();
+        return IntStream.range(0, count)
+                .mapToObj(i -> new TelemetryReading(UUID.randomUUID(), now, now, System.nanoTime(), null, null, null, null))
+                .toList();
+    }
+}
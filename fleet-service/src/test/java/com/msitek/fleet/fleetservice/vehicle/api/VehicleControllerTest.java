@@ -7,9 +7,14 @@ import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.PageResponse;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.VehicleResponse;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleField;
 import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleConflictException;
 import com.msitek.fleet.fleetservice.vehicle.exception.VehicleNotFoundException;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleAggregates;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleChangesService;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleExportService;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleImportService;
 import com.msitek.fleet.fleetservice.vehicle.service.VehicleService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -43,9 +48,27 @@ class VehicleControllerTest {
     @MockBean
     private VehicleService vehicleService;
 
+    @MockBean
+    private VehicleExportService vehicleExportService;
+
+    @MockBean
+    private VehicleImportService vehicleImportService;
+
+    @MockBean
+    private VehicleAggregates vehicleAggregates;
+
+    @MockBean
+    private VehicleChangesService vehicleChangesService;
+
     @MockBean
     private com.msitek.fleet.fleetservice.stats.RequestCounter requestCounter;
 
+    @MockBean
+    private com.msitek.fleet.fleetservice.stats.RequestLatencyRecorder requestLatencyRecorder;
+
+    @MockBean
+    private com.msitek.fleet.fleetservice.stats.RequestMetrics requestMetrics;
+
     @Test
     void shouldReturn401WhenUnauthorized() throws Exception {
         CreateVehicleRequest req = new CreateVehicleRequest(
@@ -79,7 +102,8 @@ class VehicleControllerTest {
                         2022,
                         VehicleStatus.ACTIVE,
                         now,
-                        now
+                        now,
+                        0L
                 ));
 
         CreateVehicleRequest req = new CreateVehicleRequest(
@@ -173,7 +197,8 @@ class VehicleControllerTest {
                         2022,
                         VehicleStatus.ACTIVE,
                         now,
-                        now
+                        now,
+                        0L
                 )),
                 0,
                 20,
@@ -181,7 +206,7 @@ class VehicleControllerTest {
                 1
         );
 
-        Mockito.when(vehicleService.list(anyString(), any(Pageable.class))).thenReturn(response);
+        Mockito.when(vehicleService.list(anyString(), eq(VehicleField.ALL), any(Pageable.class))).thenReturn(response);
 
         mockMvc.perform(get("/vehicles")
                         .param("q", "")
@@ -200,7 +225,7 @@ class VehicleControllerTest {
         UUID id = UUID.randomUUID();
         LocalDateTime now = LocalDateTime.now();
 
-        Mockito.when(vehicleService.update(eq(id), any(UpdateVehicleRequest.class)))
+        Mockito.when(vehicleService.update(eq(id), any(UpdateVehicleRequest.class), isNull()))
                 .thenReturn(new VehicleResponse(
                         id,
                         "KR99999",
@@ -210,7 +235,8 @@ class VehicleControllerTest {
                         2023,
                         VehicleStatus.IN_SERVICE,
                         now.minusDays(1),
-                        now
+                        now,
+                        1L
                 ));
 
         UpdateVehicleRequest req = new UpdateVehicleRequest(
@@ -1,26 +1,62 @@
 package com.msitek.fleet.fleetservice.vehicle.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleBatchRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
 import com.msitek.fleet.fleetservice.vehicle.api.dto.UpdateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.domain.Vehicle;
 import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleRepository;
+import com.msitek.fleet.fleetservice.vehicle.repository.VehicleUpdateResult;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleAggregates;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 class VehicleIntegrationTest {
 
@@ -43,9 +79,42 @@ class VehicleIntegrationTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private VehicleLookupCache vehicleLookupCache;
+
+    @Autowired
+    private VehicleAggregates vehicleAggregates;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Counts the JDBC statements of each test thread, see {@link QueryCountHolder}.
+     */
+    @TestConfiguration
+    static class StatementCountingConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? ProxyDataSourceBuilder.create(dataSource).countQuery().build()
+                            : bean;
+                }
+            };
+        }
+    }
+
     @BeforeEach
     void cleanDatabase() {
         jdbcTemplate.execute("DELETE FROM vehicles");
+        vehicleLookupCache.clear();
+        vehicleAggregates.reconcile();
     }
 
     @Test
@@ -92,6 +161,66 @@ class VehicleIntegrationTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void shouldCreateBatchAndReportConflictsPerItem() throws Exception {
+        createVehicle("KR00001", vinFor(60));
+
+        CreateVehicleBatchRequest batch = new CreateVehicleBatchRequest(List.of(
+                new CreateVehicleRequest("KR00002", vinFor(61), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS),
+                new CreateVehicleRequest("KR00003", vinFor(60), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS),
+                new CreateVehicleRequest("KR00002", vinFor(62), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS),
+                new CreateVehicleRequest("KR00004", vinFor(63), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS)
+        ));
+
+        mockMvc.perform(post(VEHICLES_ENDPOINT + "/batch")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.conflicts").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.items[2].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.items[3].status").value("CREATED"));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(63))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plateNumber").value("KR00004"));
+    }
+
+    @Test
+    void shouldCreateAndUpdateWithOneStatementEach() throws Exception {
+        QueryCountHolder.clear();
+        String id = createVehicleAndReturnId("KR12345", vinFor(70));
+        assertEquals(1, QueryCountHolder.getGrandTotal().getTotal());
+
+        UpdateVehicleRequest update = new UpdateVehicleRequest(
+                "KR99999", vinFor(70), DEFAULT_BRAND, DEFAULT_MODEL, 2023, VehicleStatus.IN_SERVICE);
+
+        QueryCountHolder.clear();
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        assertEquals(1, QueryCountHolder.getGrandTotal().getTotal());
+
+        CreateVehicleRequest samePlate = new CreateVehicleRequest(
+                "KR99999", vinFor(71), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS);
+
+        QueryCountHolder.clear();
+        mockMvc.perform(post(VEHICLES_ENDPOINT)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(samePlate)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Plate number already exists: KR99999"))
+                .andExpect(jsonPath("$.details.field").value("plateNumber"));
+        assertEquals(1, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
     @Test
     void shouldGetVehicleById() throws Exception {
         String id = createVehicleAndReturnId("KR12345", vinFor(10));
@@ -124,6 +253,74 @@ class VehicleIntegrationTest {
                 .andExpect(jsonPath("$.year").value(2023));
     }
 
+    @Test
+    void shouldServeConditionalReadsAndUpdatesFromVersion() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(40));
+
+        String etag = mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"" + id + ".0\""))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .header("If-None-Match", etag)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        UpdateVehicleRequest update = new UpdateVehicleRequest(
+                "KR99999", vinFor(40), DEFAULT_BRAND, DEFAULT_MODEL, 2023, VehicleStatus.IN_SERVICE);
+
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", id)
+                        .header("If-Match", etag)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"" + id + ".1\""))
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", id)
+                        .header("If-Match", etag)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .header("If-None-Match", etag)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plateNumber").value("KR99999"));
+    }
+
+    @Test
+    void shouldNotMatchETagOfDeletedVehicleAfterItsVinIsReused() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(41));
+
+        String etag = mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(41))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(delete(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNoContent());
+        String recreatedId = createVehicleAndReturnId("KR12345", vinFor(41));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(41))
+                        .header("If-None-Match", etag)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"" + recreatedId + ".0\""))
+                .andExpect(jsonPath("$.id").value(recreatedId));
+    }
+
     @Test
     void shouldDeleteVehicle() throws Exception {
         String id = createVehicleAndReturnId("KR12345", vinFor(30));
@@ -137,6 +334,119 @@ class VehicleIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldFindPlateCreatedAfterCachedMiss() throws Exception {
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-plate/{plate}", "KR55555")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+
+        createVehicle("KR55555", vinFor(40));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-plate/{plate}", "KR55555")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vin").value(vinFor(40)));
+    }
+
+    @Test
+    void shouldReturnPreviousValuesOfTheRowAnUpdateReplacedWhenAnotherUpdateCommittedFirst() throws Exception {
+        UUID id = UUID.fromString(createVehicleAndReturnId("KR12345", vinFor(60)));
+
+        try (Connection first = dataSource.getConnection()) {
+            first.setAutoCommit(false);
+            try (PreparedStatement statement = first.prepareStatement(
+                    "UPDATE vehicles SET vin = ?, status = 'IN_SERVICE', version = version + 1 WHERE id = ?")) {
+                statement.setString(1, vinFor(61));
+                statement.setObject(2, id);
+                statement.executeUpdate();
+            }
+
+            // waits for the first update's row lock, whose values it has not seen in its snapshot
+            CompletableFuture<Optional<VehicleUpdateResult>> second = CompletableFuture.supplyAsync(() ->
+                    vehicleRepository.update(Vehicle.builder()
+                            .id(id)
+                            .plateNumber("KR12345")
+                            .vin(vinFor(62))
+                            .brand(DEFAULT_BRAND)
+                            .model(DEFAULT_MODEL)
+                            .year(DEFAULT_YEAR)
+                            .status(VehicleStatus.SOLD)
+                            .updatedAt(LocalDateTime.now())
+                            .build(), null));
+            awaitLockWait();
+            first.commit();
+
+            VehicleUpdateResult updated = second.get(10, TimeUnit.SECONDS).orElseThrow();
+            assertEquals(VehicleStatus.IN_SERVICE, updated.previousStatus());
+            assertEquals(vinFor(61), updated.previousVin());
+            assertEquals(2, updated.vehicle().version());
+        }
+    }
+
+    @Test
+    void shouldDeleteVehicleThatAnotherUpdateChangedWhileTheDeleteWaited() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(70));
+
+        try (Connection first = dataSource.getConnection()) {
+            first.setAutoCommit(false);
+            try (PreparedStatement statement = first.prepareStatement(
+                    "UPDATE vehicles SET status = 'IN_SERVICE', version = version + 1 WHERE id = ?")) {
+                statement.setObject(1, UUID.fromString(id));
+                statement.executeUpdate();
+            }
+
+            CompletableFuture<Integer> delete = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return mockMvc.perform(delete(VEHICLES_ENDPOINT + "/{id}", id)
+                                    .with(httpBasic(USERNAME, PASSWORD)))
+                            .andReturn()
+                            .getResponse()
+                            .getStatus();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            awaitLockWait();
+            first.commit();
+
+            assertEquals(204, delete.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM vehicles", Long.class));
+    }
+
+    @Test
+    void shouldEvictPreviousVinOnUpdate() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(50));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(50))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        UpdateVehicleRequest update = new UpdateVehicleRequest(
+                "KR12345",
+                vinFor(51),
+                DEFAULT_BRAND,
+                DEFAULT_MODEL,
+                DEFAULT_YEAR,
+                DEFAULT_STATUS
+        );
+
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(50))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(51))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+    }
+
     @Test
     void shouldReturnPagedVehicles() throws Exception {
         for (int i = 0; i < 5; i++) {
@@ -150,6 +460,530 @@ class VehicleIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").value(5));
     }
 
+    @Test
+    void shouldWalkAllVehiclesWithCursor() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createVehicle("KR0000" + i, vinFor(150 + i));
+        }
+
+        Set<String> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            String response = mockMvc.perform(get(VEHICLES_ENDPOINT)
+                            .param("cursor", cursor)
+                            .param("size", "2")
+                            .with(httpBasic(USERNAME, PASSWORD)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            JsonNode json = objectMapper.readTree(response);
+            json.get("content").forEach(v -> seen.add(v.get("id").asText()));
+            cursor = json.hasNonNull("nextCursor") ? json.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void shouldReturn400ForInvalidCursor() throws Exception {
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("cursor", "not-a-cursor")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFields() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createVehicle("KR0000" + i, vinFor(170 + i));
+        }
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("fields", "plateNumber,status")
+                        .param("sort", "plateNumber,desc")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[0].plateNumber").value("KR00002"))
+                .andExpect(jsonPath("$.content[0].status").value(DEFAULT_STATUS.name()))
+                .andExpect(jsonPath("$.content[0].id").exists())
+                .andExpect(jsonPath("$.content[0].version").exists())
+                .andExpect(jsonPath("$.content[0].vin").doesNotExist())
+                .andExpect(jsonPath("$.content[0].createdAt").doesNotExist());
+
+        // createdAt is read for the cursor but not returned
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .param("fields", "vin")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].vin").exists())
+                .andExpect(jsonPath("$.content[0].createdAt").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").exists());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-plate/{plate}", "KR00001")
+                        .param("fields", "brand")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.brand").value(DEFAULT_BRAND))
+                .andExpect(jsonPath("$.plateNumber").doesNotExist());
+
+        // The cached full vehicle still serves requests without fields
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-plate/{plate}", "KR00001")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plateNumber").value("KR00001"))
+                .andExpect(jsonPath("$.year").value(DEFAULT_YEAR));
+    }
+
+    @Test
+    void shouldReturn400ForUnknownFieldOrSortProperty() throws Exception {
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("fields", "plateNumber,searchText")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("sort", "searchText")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldExportVehiclesAsNdjson() throws Exception {
+        createVehicle("KR12345", vinFor(300));
+        createVehicle("WA54321", vinFor(301));
+
+        String body = mockMvc.perform(get(VEHICLES_ENDPOINT + "/export")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        // one object per line, each line ended by a newline
+        assertTrue(body.endsWith("}\n"));
+        Set<String> vins = new HashSet<>();
+        for (String line : body.split("\n")) {
+            assertTrue(line.startsWith("{"));
+            vins.add(objectMapper.readTree(line).get("vin").asText());
+        }
+        assertEquals(Set.of(vinFor(300), vinFor(301)), vins);
+    }
+
+    @Test
+    void shouldExportFilteredVehiclesAsCsv() throws Exception {
+        createVehicle("KR12345", vinFor(310));
+        createVehicle("WA54321", vinFor(311));
+
+        String body = mockMvc.perform(get(VEHICLES_ENDPOINT + "/export")
+                        .param("format", "csv")
+                        .param("q", "wa543")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,plateNumber,vin,brand,model,year,status,createdAt,updatedAt", lines[0]);
+        assertTrue(lines[1].contains(",WA54321," + vinFor(311) + ","));
+    }
+
+    @Test
+    void shouldExportVehiclesAsCborSequence() throws Exception {
+        createVehicle("KR12345", vinFor(320));
+        createVehicle("WA54321", vinFor(321));
+
+        byte[] body = mockMvc.perform(get(VEHICLES_ENDPOINT + "/export")
+                        .param("format", "cbor")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor-seq"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        Set<String> vins = new HashSet<>();
+        try (MappingIterator<JsonNode> rows = new CBORMapper().readerFor(JsonNode.class).readValues(body)) {
+            rows.forEachRemaining(row -> vins.add(row.get("vin").asText()));
+        }
+        assertEquals(Set.of(vinFor(320), vinFor(321)), vins);
+    }
+
+    @Test
+    void shouldImportCsvUpsertingByVinAndReportingRejectedRows() throws Exception {
+        createVehicle("KR00001", vinFor(400));
+        createVehicle("GD00002", vinFor(403));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(400))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.year").value(DEFAULT_YEAR));
+
+        String csv = String.join("\n",
+                "plateNumber,vin,brand,model,year,status",
+                "KR00001," + vinFor(400) + ",Toyota,Corolla,2023,ACTIVE",
+                "\"WA 1,2\"," + vinFor(401) + ",Skoda,\"Octavia \"\"RS\"\"\",2021,IN_SERVICE",
+                "PO00003," + vinFor(404) + ",Skoda,Fabia,1800,ACTIVE",
+                "PO00004,TOO_SHORT,Skoda,Fabia,2020,ACTIVE",
+                "GD00002," + vinFor(402) + ",Skoda,Fabia,2020,ACTIVE",
+                "");
+
+        mockMvc.perform(post(VEHICLES_ENDPOINT + "/import")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.unchanged").value(0))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.rejections[*].line").value(containsInAnyOrder(4, 5, 6)));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(400))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.year").value(2023));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(401))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.plateNumber").value("WA 1,2"))
+                .andExpect(jsonPath("$.model").value("Octavia \"RS\""));
+    }
+
+    @Test
+    void shouldImportOnlyTheLastRowForEachVinAndPlate() throws Exception {
+        String csv = String.join("\n",
+                "plateNumber,vin,brand,model,year,status",
+                "KR00001," + vinFor(420) + ",Toyota,Corolla,2019,ACTIVE",
+                "KR00002," + vinFor(421) + ",Skoda,Fabia,2020,ACTIVE",
+                "KR00003," + vinFor(420) + ",Toyota,Corolla,2021,ACTIVE",
+                "KR00002," + vinFor(422) + ",Skoda,Fabia,2022,ACTIVE",
+                "");
+
+        mockMvc.perform(post(VEHICLES_ENDPOINT + "/import")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.rejections[*].line").value(containsInAnyOrder(2, 3)));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(420))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.plateNumber").value("KR00003"))
+                .andExpect(jsonPath("$.year").value(2021));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-plate/{plate}", "KR00002")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.vin").value(vinFor(422)));
+    }
+
+    @Test
+    void shouldImportCsvWithByteOrderMarkAndSpacesInHeader() throws Exception {
+        String csv = String.join("\n",
+                "\uFEFFplateNumber, vin, brand, model, year, status",
+                "KR00001," + vinFor(410) + ",Toyota,Corolla,2023,ACTIVE",
+                "");
+
+        mockMvc.perform(post(VEHICLES_ENDPOINT + "/import")
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    void shouldKeepAggregatesInStepWithWritesAndRecountBypassingWrites() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(450));
+        String sold = createVehicleAndReturnId("KR12346", vinFor(451));
+        mockMvc.perform(post(VEHICLES_ENDPOINT)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateVehicleRequest(
+                                "KR12346", vinFor(452), DEFAULT_BRAND, DEFAULT_MODEL, DEFAULT_YEAR, DEFAULT_STATUS))))
+                .andExpect(status().isConflict());
+
+        UpdateVehicleRequest update = new UpdateVehicleRequest(
+                "KR12345", vinFor(450), "Skoda", "Fabia", 2019, VehicleStatus.IN_SERVICE);
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(VEHICLES_ENDPOINT + "/{id}", sold)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNoContent());
+
+        // The conflicting create was rolled back and not counted
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/aggregates")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.byStatus.ACTIVE").value(0))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(1))
+                .andExpect(jsonPath("$.byStatus.SOLD").value(0))
+                .andExpect(jsonPath("$.byBrand.Skoda").value(1))
+                .andExpect(jsonPath("$.byBrand.Toyota").doesNotExist())
+                .andExpect(jsonPath("$.byYear.2019").value(1));
+
+        jdbcTemplate.update("UPDATE vehicles SET status = 'SOLD'");
+        vehicleAggregates.reconcile();
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/aggregates")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.byStatus.IN_SERVICE").value(0))
+                .andExpect(jsonPath("$.byStatus.SOLD").value(1));
+    }
+
+    @Test
+    void shouldSyncChangesSinceTokenIncludingDeletes() throws Exception {
+        String token = syncChanges(null, 5000, new HashSet<>(), new HashSet<>());
+
+        String kept = createVehicleAndReturnId("KR12345", vinFor(460));
+        String deleted = createVehicleAndReturnId("KR12346", vinFor(461));
+        String updated = createVehicleAndReturnId("KR12347", vinFor(462));
+        mockMvc.perform(put(VEHICLES_ENDPOINT + "/{id}", updated)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateVehicleRequest(
+                                "KR12347", vinFor(462), DEFAULT_BRAND, DEFAULT_MODEL, 2024, VehicleStatus.SOLD))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(VEHICLES_ENDPOINT + "/{id}", deleted)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNoContent());
+
+        Set<String> vehicles = new HashSet<>();
+        Set<String> deletions = new HashSet<>();
+        String next = syncChanges(token, 1, vehicles, deletions);
+        assertEquals(Set.of(kept, updated + "@1"), vehicles);
+        assertEquals(Set.of(deleted), deletions);
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/changes")
+                        .param("since", next)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicles").isEmpty())
+                .andExpect(jsonPath("$.deleted").isEmpty())
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        // Once the deletion's tombstone is compacted away, a client that has not seen it must start over
+        vehicleRepository.compactTombstones(LocalDateTime.now().plusMinutes(1));
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/changes")
+                        .param("since", token)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isGone());
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/changes")
+                        .param("since", "not-a-token")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldCountRequestsByRouteTemplate() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(500));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(501))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+
+        String body = mockMvc.perform(get("/stats/requests")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.perEndpoint['GET /vehicles/{id}']").isNumber())
+                .andExpect(jsonPath("$.perEndpoint['GET /vehicles/by-vin/{vin}']").isNumber())
+                .andExpect(jsonPath("$.rate.oneMinute").isNumber())
+                .andExpect(jsonPath("$.rate.fifteenMinutes").isNumber())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertTrue(!body.contains(id) && !body.contains(vinFor(501)), body);
+    }
+
+    @Test
+    void shouldReportLatencyPercentilesPerIntervalAndStatusClass() throws Exception {
+        mockMvc.perform(get("/stats/latency")
+                        .param("reset", "true")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        String id = createVehicleAndReturnId("KR12345", vinFor(510));
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                            .with(httpBasic(USERNAME, PASSWORD)))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/by-vin/{vin}", vinFor(511))
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/stats/latency")
+                        .param("reset", "true")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /vehicles/{id}' && @.status == '2xx')].count")
+                        .value(3))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /vehicles/by-vin/{vin}' && @.status == '4xx')].count")
+                        .value(1))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'POST /vehicles')].p99Ms").isNotEmpty());
+
+        mockMvc.perform(get("/stats/latency")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints").isEmpty());
+    }
+
+    @Test
+    void shouldExposeRequestPoolAndCacheMetricsToPrometheus() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(520));
+        mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "fleet_http_requests_seconds_count{method=\"GET\",route=\"/vehicles/{id}\",status=\"2xx\"}")))
+                .andExpect(content().string(containsString(
+                        "fleet_http_requests_seconds_bucket{method=\"GET\",route=\"/vehicles/{id}\",status=\"2xx\",le=")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"vehicleLookup\"")))
+                .andExpect(content().string(not(containsString("http_server_requests"))))
+                .andExpect(content().string(not(containsString(id))));
+    }
+
+    @Test
+    void shouldRejectWrongPasswordAfterSuccessfulLogin() throws Exception {
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .with(httpBasic(USERNAME, PASSWORD + "x")))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldNegotiateCborAndSmileWithJsonAsDefault() throws Exception {
+        String id = createVehicleAndReturnId("KR12345", vinFor(530));
+
+        String json = mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        byte[] cbor = mockMvc.perform(get(VEHICLES_ENDPOINT + "/{id}", id)
+                        .accept("application/cbor")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        byte[] smilePage = mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .accept("application/x-jackson-smile")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        // UUIDs are encoded as 16 raw bytes rather than as text
+        JsonNode expected = objectMapper.readTree(json);
+        JsonNode fromCbor = new CBORMapper().readTree(cbor);
+        JsonNode fromSmile = new SmileMapper().readTree(smilePage).get("content").get(0);
+        assertEquals(id, uuidOf(fromCbor.get("id").binaryValue()).toString());
+        assertEquals(id, uuidOf(fromSmile.get("id").binaryValue()).toString());
+        ((ObjectNode) expected).remove("id");
+        ((ObjectNode) fromCbor).remove("id");
+        ((ObjectNode) fromSmile).remove("id");
+        assertEquals(expected, fromCbor);
+        assertEquals(expected, fromSmile);
+    }
+
+    private static UUID uuidOf(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    @Test
+    void shouldSearchVehiclesCaseInsensitively() throws Exception {
+        createVehicle("KR12345", vinFor(200));
+        createVehicle("WA54321", vinFor(201));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("q", "Wa543")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].plateNumber").value("WA54321"));
+
+        mockMvc.perform(get(VEHICLES_ENDPOINT)
+                        .param("q", "corol")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+
+    /**
+     * Reads changes until {@code hasMore} is off, collecting vehicle ids (suffixed with {@code @version} past
+     * version 0) and deleted ids, and returns the token for the next sync.
+     */
+    private String syncChanges(String since, int limit, Set<String> vehicles, Set<String> deletions) throws Exception {
+        String token = since;
+        JsonNode page;
+        do {
+            MockHttpServletRequestBuilder request = get(VEHICLES_ENDPOINT + "/changes")
+                    .param("limit", String.valueOf(limit))
+                    .with(httpBasic(USERNAME, PASSWORD));
+            if (token != null) {
+                request.param("since", token);
+            }
+            page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString());
+            for (JsonNode vehicle : page.get("vehicles")) {
+                long version = vehicle.get("version").asLong();
+                vehicles.add(vehicle.get("id").asText() + (version == 0 ? "" : "@" + version));
+            }
+            for (JsonNode deletion : page.get("deleted")) {
+                deletions.add(deletion.get("id").asText());
+            }
+            token = page.get("nextToken").asText();
+        } while (page.get("hasMore").asBoolean());
+        return token;
+    }
 
     private String createVehicleAndReturnId(String plate, String vin) throws Exception {
         CreateVehicleRequest request = new CreateVehicleRequest(
@@ -191,6 +1025,18 @@ class VehicleIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_stat_activity WHERE datname = current_database() AND wait_event_type = 'Lock'",
+                Long.class) == 0) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("No statement is waiting for a lock");
+            }
+            Thread.sleep(10);
+        }
+    }
+
     private static String vinFor(int n) {
         return String.format("VIN%014d", n);
     }
@@ -0,0 +1,149 @@
+package com.msitek.fleet.fleetservice.vehicle.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msitek.fleet.fleetservice.common.datasource.ReplicaMonitor;
+import com.msitek.fleet.fleetservice.vehicle.api.dto.CreateVehicleRequest;
+import com.msitek.fleet.fleetservice.vehicle.domain.VehicleStatus;
+import com.msitek.fleet.fleetservice.vehicle.service.VehicleLookupCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against a streaming replica of the test database when {@code FLEET_TEST_DB_REPLICA_URL} is set (see
+ * {@code fleet-test-db-replica} in docker-compose.yml), otherwise against a second pool on the test database itself.
+ * The monitor only polls when told to, so each test decides when the replica has caught up.
+ */
+@SpringBootTest(properties = {
+        "fleet.datasource.replica.url=${FLEET_TEST_DB_REPLICA_URL:${spring.datasource.url}}",
+        "fleet.datasource.replica.poll-interval=PT1H"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VehicleReplicaRoutingIntegrationTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VehicleLookupCache vehicleLookupCache;
+
+    @Autowired
+    private ReplicaMonitor replicaMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void cleanDatabase() throws InterruptedException {
+        jdbcTemplate.execute("DELETE FROM vehicles");
+        vehicleLookupCache.clear();
+        awaitReplica();
+    }
+
+    @Test
+    void shouldReadFromReplicaAndOwnWritesFromPrimary() throws Exception {
+        long replica = connections("replica");
+
+        mockMvc.perform(get("/vehicles").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        assertEquals(replica + 1, connections("replica"));
+        long primary = connections("primary");
+
+        String id = objectMapper.readTree(mockMvc.perform(post("/vehicles")
+                                .with(httpBasic(USERNAME, PASSWORD))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new CreateVehicleRequest(
+                                        "KR12345", "JH4KA7650MC000001", "Toyota", "Corolla", 2022,
+                                        VehicleStatus.ACTIVE))))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString())
+                .get("id")
+                .asText();
+
+        // The replica has not been seen to catch up since the write
+        mockMvc.perform(get("/vehicles").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1));
+        mockMvc.perform(get("/vehicles/{id}", id).with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        assertEquals(primary + 3, connections("primary"));
+        assertEquals(replica + 1, connections("replica"));
+
+        awaitReplica();
+        replica = connections("replica");
+        mockMvc.perform(get("/vehicles/by-plate/{plate}", "KR12345").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+        mockMvc.perform(get("/vehicles").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1));
+        assertEquals(replica + 2, connections("replica"));
+    }
+
+    @Test
+    void shouldReadFromPrimaryWhileReplicaIsDown() throws Exception {
+        replicaMonitor.markDown(new SQLException("Connection refused"));
+        long primary = connections("primary");
+        long replica = connections("replica");
+
+        mockMvc.perform(get("/vehicles").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+
+        assertEquals(replica, connections("replica"));
+        // the first request also loads the user from the primary when it runs first
+        assertTrue(connections("primary") >= primary + 2);
+    }
+
+    /**
+     * Polls until the replica has caught up with a poll that started after every write so far.
+     */
+    private void awaitReplica() throws InterruptedException {
+        long since = System.nanoTime();
+        long deadline = since + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            replicaMonitor.poll();
+            if (replicaMonitor.canServe(since)) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Replica did not catch up");
+    }
+
+    private long connections(String pool) {
+        return meterRegistry.get("hikaricp.connections.usage").tag("pool", pool).timer().count();
+    }
+}
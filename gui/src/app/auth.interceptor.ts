@@ -1,10 +1,12 @@
 import { HttpInterceptorFn } from '@angular/common/http';
 
-export const basicAuthInterceptor: HttpInterceptorFn = (req, next) => {
+export function authorizationHeader(): string {
   const username = localStorage.getItem('auth.username') ?? 'admin';
   const password = localStorage.getItem('auth.password') ?? 'admin';
 
-  const header = 'Basic ' + btoa(username + ':' + password);
+  return 'Basic ' + btoa(username + ':' + password);
+}
 
-  return next(req.clone({ setHeaders: { Authorization: header } }));
+export const basicAuthInterceptor: HttpInterceptorFn = (req, next) => {
+  return next(req.clone({ setHeaders: { Authorization: authorizationHeader() } }));
 };
@@ -0,0 +1,75 @@
+import { Injectable } from '@angular/core';
+import { Observable, share } from 'rxjs';
+import { authorizationHeader } from './auth.interceptor';
+
+export interface ServerEvent {
+  name: string;
+  data: any;
+}
+
+/**
+ * Server-sent events from `/events`, shared by all subscribers of `events$`.
+ *
+ * Read with fetch rather than EventSource, which cannot send the Authorization header. After a lost connection it
+ * reconnects and emits a `reconnected` event, since events may have been missed in between.
+ */
+@Injectable({ providedIn: 'root' })
+export class EventsService {
+  private readonly url = '/events';
+
+  readonly events$: Observable<ServerEvent> = new Observable<ServerEvent>((subscriber) => {
+    let controller: AbortController | undefined;
+    let timer: ReturnType<typeof setTimeout> | undefined;
+    let reconnectDelay = 3000;
+    let connected = false;
+    let closed = false;
+
+    const connect = async () => {
+      controller = new AbortController();
+      try {
+        const res = await fetch(this.url, {
+          headers: { Authorization: authorizationHeader(), Accept: 'text/event-stream' },
+          signal: controller.signal,
+        });
+        if (!res.ok || !res.body) throw new Error(`HTTP ${res.status}`);
+
+        if (connected) subscriber.next({ name: 'reconnected', data: null });
+        connected = true;
+
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value;
+
+          let end: number;
+          while ((end = buffer.indexOf('\n\n')) >= 0) {
+            const block = buffer.slice(0, end);
+            buffer = buffer.slice(end + 2);
+
+            let name = 'message';
+            let data = '';
+            for (const line of block.split('\n')) {
+              if (line.startsWith('event: ')) name = line.slice(7);
+              else if (line.startsWith('data: ')) data += line.slice(6);
+              else if (line.startsWith('retry: ')) reconnectDelay = Number(line.slice(7));
+            }
+            if (data) subscriber.next({ name, data: JSON.parse(data) });
+          }
+        }
+      } catch {
+        // disconnected, or aborted by unsubscribing
+      }
+      if (!closed) timer = setTimeout(connect, reconnectDelay);
+    };
+
+    connect();
+
+    return () => {
+      closed = true;
+      clearTimeout(timer);
+      controller?.abort();
+    };
+  }).pipe(share());
+}
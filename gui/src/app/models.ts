@@ -4,6 +4,7 @@ export interface PageResponse<T> {
   size: number;
   totalElements: number;
   totalPages: number;
+  nextCursor?: string;
 }
 
 export type VehicleStatus = 'ACTIVE' | 'IN_SERVICE' | 'SOLD';
@@ -18,6 +19,7 @@ export interface VehicleResponse {
   status: VehicleStatus;
   createdAt: string;
   updatedAt: string;
+  version: number;
 }
 
 export interface CreateVehicleRequest {
@@ -31,8 +33,30 @@ export interface CreateVehicleRequest {
 
 export interface UpdateVehicleRequest extends CreateVehicleRequest {}
 
+export interface RequestRate {
+  oneMinute: number;
+  fiveMinutes: number;
+  fifteenMinutes: number;
+}
+
 export interface RequestStatsResponse {
   totalRequests: number;
   perEndpoint: Record<string, number>;
   perStatus: Record<string, number>;
+  rate: RequestRate;
+  perEndpointRate: Record<string, RequestRate>;
+  perStatusRate: Record<string, RequestRate>;
+}
+
+export interface VehicleAggregatesResponse {
+  total: number;
+  byStatus: Record<VehicleStatus, number>;
+  byBrand: Record<string, number>;
+  byYear: Record<string, number>;
+  reconciledAt: string;
+}
+
+export interface StatsSnapshot {
+  requests: RequestStatsResponse;
+  fleet: VehicleAggregatesResponse;
 }
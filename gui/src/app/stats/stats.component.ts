@@ -1,7 +1,10 @@
 import { Component } from '@angular/core';
 import { CommonModule } from '@angular/common';
+import { takeUntilDestroyed } from '@angular/core/rxjs-interop';
+import { filter } from 'rxjs';
 import { StatsService } from './stats.service';
-import { RequestStatsResponse } from '../models';
+import { EventsService } from '../events.service';
+import { RequestStatsResponse, StatsSnapshot } from '../models';
 
 @Component({
   selector: 'app-stats',
@@ -15,8 +18,19 @@ export class StatsComponent {
   error: string | null = null;
   data: RequestStatsResponse | null = null;
 
-  constructor(private readonly statsService: StatsService) {
+  constructor(private readonly statsService: StatsService, events: EventsService) {
     this.load();
+
+    // The server pushes a snapshot every few seconds
+    events.events$
+      .pipe(
+        filter((e) => e.name === 'stats'),
+        takeUntilDestroyed(),
+      )
+      .subscribe((e) => {
+        this.data = (e.data as StatsSnapshot).requests;
+        this.error = null;
+      });
   }
 
   load(): void {
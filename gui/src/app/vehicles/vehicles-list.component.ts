@@ -2,9 +2,15 @@ import { Component } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { RouterLink } from '@angular/router';
 import { FormsModule } from '@angular/forms';
+import { takeUntilDestroyed } from '@angular/core/rxjs-interop';
+import { auditTime, filter } from 'rxjs';
 import { VehiclesService } from './vehicles.service';
+import { EventsService } from '../events.service';
 import { PageResponse, VehicleResponse } from '../models';
 
+// Events that may change which vehicles are on the page
+const RELOAD_EVENTS = new Set(['vehicle-created', 'vehicle-deleted', 'vehicles-changed', 'reconnected']);
+
 @Component({
   selector: 'app-vehicles-list',
   standalone: true,
@@ -23,12 +29,24 @@ export class VehiclesListComponent {
 
   data: PageResponse<VehicleResponse> | null = null;
 
-  constructor(private readonly vehiclesService: VehiclesService) {
+  constructor(private readonly vehiclesService: VehiclesService, events: EventsService) {
     this.load();
+
+    const changes = events.events$.pipe(takeUntilDestroyed());
+    changes
+      .pipe(filter((e) => e.name === 'vehicle-updated'))
+      .subscribe((e) => this.replace(e.data as VehicleResponse));
+    // At most one reload per second, however many vehicles change
+    changes
+      .pipe(
+        filter((e) => RELOAD_EVENTS.has(e.name)),
+        auditTime(1000),
+      )
+      .subscribe(() => this.load(true));
   }
 
-  load(): void {
-    this.loading = true;
+  load(quiet = false): void {
+    this.loading = !quiet;
     this.error = null;
 
     this.vehiclesService
@@ -45,6 +63,13 @@ export class VehiclesListComponent {
       });
   }
 
+  private replace(vehicle: VehicleResponse): void {
+    if (!this.data) return;
+    const i = this.data.content.findIndex((v) => v.id === vehicle.id);
+    if (i < 0 || this.data.content[i].version >= vehicle.version) return;
+    this.data = { ...this.data, content: this.data.content.map((v, j) => (j === i ? vehicle : v)) };
+  }
+
   search(): void {
     this.page = 0;
     this.load();